@@ -473,10 +473,12 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 	public void setPropertyValues(PropertyValues propertyValues, boolean ignoreUnknown) throws BeansException {
 		List propertyAccessExceptions = new ArrayList();
-		PropertyValue[] pvs = propertyValues.getPropertyValues();
-		for (int i = 0; i < pvs.length; i++) {
+		//MutablePropertyValues 는 PropertyValue 를 만들지 않고 index 로 읽는다
+		MutablePropertyValues pvs = (propertyValues instanceof MutablePropertyValues ?
+				(MutablePropertyValues) propertyValues : new MutablePropertyValues(propertyValues));
+		for (int i = 0; i < pvs.size(); i++) {
 			try {
-				setPropertyValue(pvs[i]);
+				setPropertyValue(pvs.getName(i), pvs.getValue(i));
 			} catch (NotWritablePropertyException ex) {
 				if (!ignoreUnknown) {
 					throw ex;
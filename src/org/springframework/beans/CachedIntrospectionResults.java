@@ -4,6 +4,7 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,7 +15,7 @@ public class CachedIntrospectionResults {
 	private static final Log logger = LogFactory.getLog(CachedIntrospectionResults.class);
 	
 	//싱글톤으로 관리
-	private static HashMap classCache = new HashMap();
+	private static final Map classCache = Collections.synchronizedMap(new HashMap());
 	
 	protected static CachedIntrospectionResults forClass(Class clazz) throws BeansException {
 		Object results = classCache.get(clazz);
@@ -32,6 +33,13 @@ public class CachedIntrospectionResults {
 		return (CachedIntrospectionResults) results;
 	}
 	
+	//더 이상 쓰지 않는 클레스의 캐쉬 제거, Introspector 캐쉬도 같이 비운다
+	public static void removeClass(Class clazz) {
+		if (classCache.remove(clazz) != null) {
+			Introspector.flushFromCaches(clazz);
+		}
+	}
+	
 	private BeanInfo beanInfo;
 	
 	private Map propertyDescriptorMap;
@@ -1,34 +1,59 @@
 package org.springframework.beans;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 public class MutablePropertyValues implements PropertyValues{
-	private List propertyValuesList;
+	private static final String[] EMPTY_NAMES = new String[0];
+	
+	private static final Object[] EMPTY_VALUES = new Object[0];
+	
+	//PropertyValue 객체 대신 이름과 값을 같은 위치에 저장, size 까지만 사용
+	//PropertyValue 는 꺼낼때 만든다
+	private String[] names;
+	
+	private Object[] values;
+	
+	private int size;
+	
+	//추가, 삭제, 변경 때 마다 증가, 이 값으로 만든 캐쉬가 지난건지 알기 위해
+	private int modificationCount;
 	
 	public MutablePropertyValues() {
-		this.propertyValuesList = new ArrayList(10);
+		this.names = EMPTY_NAMES;
+		this.values = EMPTY_VALUES;
 	}
 	
 	public MutablePropertyValues(PropertyValues other) {
 		this();
-		if (other != null) {
+		if (other instanceof MutablePropertyValues) {
+			MutablePropertyValues that = (MutablePropertyValues) other;
+			this.size = that.size;
+			if (this.size > 0) {
+				this.names = new String[this.size];
+				this.values = new Object[this.size];
+				System.arraycopy(that.names, 0, this.names, 0, this.size);
+				System.arraycopy(that.values, 0, this.values, 0, this.size);
+			}
+		}
+		else if (other != null) {
 			PropertyValue[] pvs = other.getPropertyValues();
-			this.propertyValuesList = new ArrayList(pvs.length);
+			this.names = new String[pvs.length];
+			this.values = new Object[pvs.length];
 			for (int i = 0; i < pvs.length; i++) {
-				addPropertyValue(new PropertyValue(pvs[i].getName(), pvs[i].getValue()));
+				addPropertyValue(pvs[i].getName(), pvs[i].getValue());
 			}
 		}
 	}
 	
 	public MutablePropertyValues(Map map) {
 		Set keys = map.keySet();
-		this.propertyValuesList = new ArrayList(keys.size());
+		this.names = new String[keys.size()];
+		this.values = new Object[keys.size()];
 		Iterator itr = keys.iterator();
 		while (itr.hasNext()) {
 			String key = (String) itr.next();
@@ -37,22 +62,46 @@ public class MutablePropertyValues implements PropertyValues{
 	}
 	
 	public void addPropertyValue(PropertyValue pv) {
-		for (int i = 0; i < this.propertyValuesList.size(); i++) {
-			PropertyValue currentPv = (PropertyValue) this.propertyValuesList.get(i);
-			if (currentPv.getName().equals(pv.getName())) {
-				this.propertyValuesList.set(i, pv);
-				return;
-			}
-		}
-		this.propertyValuesList.add(pv);
+		addPropertyValue(pv.getName(), pv.getValue());
 	}
 	
 	public void addPropertyValue(String propertyName, Object propertyValue) {
-		addPropertyValue(new PropertyValue(propertyName, propertyValue));
+		if (propertyName == null) {
+			throw new IllegalArgumentException("Property name cannot be null");
+		}
+		this.modificationCount++;
+		int index = indexOf(propertyName);
+		if (index != -1) {
+			this.values[index] = propertyValue;
+			return;
+		}
+		if (this.size == this.names.length) {
+			int capacity = (this.size < 4 ? 4 : this.size * 2);
+			String[] newNames = new String[capacity];
+			Object[] newValues = new Object[capacity];
+			System.arraycopy(this.names, 0, newNames, 0, this.size);
+			System.arraycopy(this.values, 0, newValues, 0, this.size);
+			this.names = newNames;
+			this.values = newValues;
+		}
+		this.names[this.size] = propertyName;
+		this.values[this.size] = propertyValue;
+		this.size++;
 	}
 	
 	public void removePropertyValue(PropertyValue pv) {
-		this.propertyValuesList.remove(pv);
+		if (pv == null) {
+			return;
+		}
+		int index = indexOf(pv.getName());
+		if (index != -1 && ObjectUtils.nullSafeEquals(this.values[index], pv.getValue())) {
+			this.modificationCount++;
+			System.arraycopy(this.names, index + 1, this.names, index, this.size - index - 1);
+			System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+			this.size--;
+			this.names[this.size] = null;
+			this.values[this.size] = null;
+		}
 	}
 	
 	public void removePropertyValue(String propertyName) {
@@ -60,25 +109,81 @@ public class MutablePropertyValues implements PropertyValues{
 	}
 	
 	public void setPropertyValueAt(PropertyValue pv, int i) {
-		this.propertyValuesList.set(i, pv);
+		checkIndex(i);
+		this.modificationCount++;
+		this.names[i] = pv.getName();
+		this.values[i] = pv.getValue();
+	}
+	
+	//배열을 개수에 맞게 줄이고 이름과 문자열 값을 intern
+	//같은 프로퍼티 이름, 값이 definition 마다 따로 남지 않게 등록할때 호출한다
+	public void compact() {
+		if (this.names.length != this.size) {
+			String[] newNames = new String[this.size];
+			Object[] newValues = new Object[this.size];
+			System.arraycopy(this.names, 0, newNames, 0, this.size);
+			System.arraycopy(this.values, 0, newValues, 0, this.size);
+			this.names = (this.size > 0 ? newNames : EMPTY_NAMES);
+			this.values = (this.size > 0 ? newValues : EMPTY_VALUES);
+		}
+		for (int i = 0; i < this.size; i++) {
+			this.names[i] = this.names[i].intern();
+			if (this.values[i] instanceof String) {
+				this.values[i] = ((String) this.values[i]).intern();
+			}
+		}
+	}
+	
+	public int getModificationCount() {
+		return this.modificationCount;
+	}
+	
+	//빈 생성 때 마다 읽는 곳은 PropertyValue 를 만들지 않게 index 로 읽는다
+	public int size() {
+		return this.size;
+	}
+	
+	public String getName(int i) {
+		checkIndex(i);
+		return this.names[i];
+	}
+	
+	public Object getValue(int i) {
+		checkIndex(i);
+		return this.values[i];
+	}
+	
+	private void checkIndex(int i) {
+		if (i < 0 || i >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+		}
 	}
 	
 	public PropertyValue[] getPropertyValues() {
-		return (PropertyValue[]) this.propertyValuesList.toArray(new PropertyValue[0]);
+		PropertyValue[] pvs = new PropertyValue[this.size];
+		for (int i = 0; i < this.size; i++) {
+			pvs[i] = new PropertyValue(this.names[i], this.values[i]);
+		}
+		return pvs;
 	}
 	
 	public PropertyValue getPropertyValue(String propertyName) {
-		for (int i = 0; i < this.propertyValuesList.size(); i++) {
-			PropertyValue pv = (PropertyValue) this.propertyValuesList.get(i);
-			if (pv.getName().equals(propertyName)) {
-				return pv;
-			}
-		}
-		return null;
+		int index = indexOf(propertyName);
+		return (index != -1 ? new PropertyValue(this.names[index], this.values[index]) : null);
 	}
 	
 	public boolean contains(String propertyName) {
-		return getPropertyValue(propertyName) != null;
+		return indexOf(propertyName) != -1;
+	}
+	
+	private int indexOf(String propertyName) {
+		for (int i = 0; i < this.size; i++) {
+			//intern 된 이름은 == 에서 끝난다
+			if (this.names[i] == propertyName || this.names[i].equals(propertyName)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 	
 	
@@ -87,8 +192,8 @@ public class MutablePropertyValues implements PropertyValues{
 		if (old == this)
 			return changes;
 
-		for (int i = 0; i < this.propertyValuesList.size(); i++) {
-			PropertyValue newPv = (PropertyValue) this.propertyValuesList.get(i);
+		for (int i = 0; i < this.size; i++) {
+			PropertyValue newPv = new PropertyValue(this.names[i], this.values[i]);
 			PropertyValue pvOld = old.getPropertyValue(newPv.getName());
 			
 			if (pvOld == null) {
@@ -1,5 +1,7 @@
 package org.springframework.beans;
 
+import org.springframework.util.ObjectUtils;
+
 public class PropertyValue {
 	private String name;
 	private Object value;
@@ -32,11 +34,10 @@ public class PropertyValue {
 			return false;
 		}
 		PropertyValue otherPv = (PropertyValue) other;
-		return (this.name.equals(otherPv.name) &&
-				((this.value == null && otherPv.value == null) || this.value.equals(otherPv.value)));
+		return (this.name.equals(otherPv.name) && ObjectUtils.nullSafeEquals(this.value, otherPv.value));
 	}
 
 	public int hashCode() {
-		return this.name.hashCode() * 29 + (this.value != null ? this.value.hashCode() : 0);
+		return this.name.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.value);
 	}
 }
@@ -0,0 +1,11 @@
+package org.springframework.beans.factory;
+
+//다른 쓰레드에서 생성중인 싱글톤과 서로 기다리게 되서 생성을 포기
+//같은 빈을 한 쓰레드에서 다시 생성하면 성공할수 있다
+public class BeanCurrentlyInCreationException extends BeanCreationException{
+	
+	public BeanCurrentlyInCreationException(String msg) {
+		super(msg);
+	}
+
+}
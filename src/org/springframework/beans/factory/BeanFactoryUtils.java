@@ -1,8 +1,11 @@
 package org.springframework.beans.factory;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
 
@@ -30,5 +33,17 @@ public abstract class BeanFactoryUtils {
 			return result;
 		}
 	
+	//자식의 이름이 먼저, 부모에만 있는 이름은 뒤에
+	public static String[] beanNamesForTypeIncludingAncestors(ListableBeanFactory lbf, Class type) throws BeansException {
+		Set result = new LinkedHashSet(Arrays.asList(lbf.getBeanNamesForType(type)));
+		if (lbf instanceof HierarchicalBeanFactory) {
+			HierarchicalBeanFactory hbf = (HierarchicalBeanFactory) lbf;
+			if (hbf.getParentBeanFactory() instanceof ListableBeanFactory) {
+				String[] parentResult = beanNamesForTypeIncludingAncestors((ListableBeanFactory) hbf.getParentBeanFactory(), type);
+				result.addAll(Arrays.asList(parentResult));
+			}
+		}
+		return (String[]) result.toArray(new String[result.size()]);
+	}
 	
 }
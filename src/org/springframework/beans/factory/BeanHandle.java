@@ -0,0 +1,10 @@
+package org.springframework.beans.factory;
+
+import org.springframework.beans.BeansException;
+
+//한번 이름을 해석해 두고 반복해서 getBean 하기 위한 객체
+//싱글톤은 캐쉬된 객체를 바로 리턴하고 destroy 되면 다시 getBean 한다
+public interface BeanHandle {
+	String getBeanName();
+	Object get() throws BeansException;
+}
@@ -10,4 +10,7 @@ public interface ListableBeanFactory extends BeanFactory{
 	String[] getBeanDefinitionNames(Class type);
 	boolean containsBeanDefinition(String name);
 	Map getBeansOfType(Class type, boolean includePrototypes, boolean includeFactoryBeans)throws BeansException;
+	//getBeansOfType(type, true, true) 가 돌려줄 빈의 이름, 빈은 만들지 않는다
+	//FactoryBean 은 만든 객체 타입을 알기 위해 FactoryBean 자신만 생성될수 있다
+	String[] getBeanNamesForType(Class type) throws BeansException;
 }
@@ -0,0 +1,39 @@
+package org.springframework.beans.factory.config;
+
+//빈 생성 과정을 측정하기 위한 콜백
+//등록된 listener 가 없으면 BeanFactory 는 시간을 재지 않는다
+//여러 쓰레드에서 동시에 호출될수 있다
+public interface BeanCreationListener {
+
+	int PHASE_INSTANTIATE = 0;
+
+	int PHASE_POPULATE = 1;
+
+	//BeanNameAware, BeanFactoryAware
+	int PHASE_AWARE = 2;
+
+	int PHASE_BEFORE_INITIALIZATION = 3;
+
+	//afterPropertiesSet, init-method
+	int PHASE_INIT = 4;
+
+	int PHASE_AFTER_INITIALIZATION = 5;
+
+	String[] PHASE_NAMES = { "instantiate", "populate", "aware", "postProcessBeforeInitialization", "init",
+			"postProcessAfterInitialization" };
+
+	void beanCreationStarted(String beanName);
+
+	//populate 는 참조하는 빈의 생성 시간까지 포함된다
+	void beanCreationPhase(String beanName, int phase, long nanos);
+
+	void beanCreationFinished(String beanName, long nanos, boolean success);
+
+	void singletonCacheHit(String beanName);
+
+	void singletonCacheMiss(String beanName);
+
+	//다른 쓰레드가 생성중인 싱글톤을 기다린 시간
+	void singletonLockWaited(String beanName, long nanos);
+
+}
@@ -0,0 +1,24 @@
+package org.springframework.beans.factory.config;
+
+//필요한 메서드만 구현할수 있게 아무것도 안하는 구현
+public abstract class BeanCreationListenerAdapter implements BeanCreationListener {
+
+	public void beanCreationStarted(String beanName) {
+	}
+
+	public void beanCreationPhase(String beanName, int phase, long nanos) {
+	}
+
+	public void beanCreationFinished(String beanName, long nanos, boolean success) {
+	}
+
+	public void singletonCacheHit(String beanName) {
+	}
+
+	public void singletonCacheMiss(String beanName) {
+	}
+
+	public void singletonLockWaited(String beanName, long nanos) {
+	}
+
+}
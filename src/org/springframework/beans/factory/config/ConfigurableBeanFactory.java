@@ -4,6 +4,7 @@ import java.beans.PropertyEditor;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanHandle;
 import org.springframework.beans.factory.HierarchicalBeanFactory;
 
 public interface ConfigurableBeanFactory extends HierarchicalBeanFactory{
@@ -11,8 +12,17 @@ public interface ConfigurableBeanFactory extends HierarchicalBeanFactory{
 	void registerCustomEditor(Class requiredType, PropertyEditor propertyEditor);
 	void ignoreDependencyType(Class type);
 	void addBeanPostProcessor(BeanPostProcessor beanPostProcessor);
+	void addBeanCreationListener(BeanCreationListener beanCreationListener);
+	void removeBeanCreationListener(BeanCreationListener beanCreationListener);
 	BeanDefinition getBeanDefinition(String beanName) throws BeansException;
+	BeanHandle getBeanHandle(String name) throws BeansException;
 	void registerAlias(String beanName, String alias) throws BeansException;
 	void registerSingleton(String beanName, Object singletonObject) throws BeansException;
+	void releaseBean(String name, Object bean);
+	//현재 쓰레드의 thread-scope 객체 destroy, pool 의 쓰레드는 작업이 끝날때 마다 호출해야 한다
+	void destroyThreadScopedBeans();
+	//끝나면 destroyThreadScopedBeans 를 부르는 Runnable, 쓰레드 끝에 thread-scope 객체를 destroy 하는 방법
+	//감싸지 않고 끝난 쓰레드의 객체는 Thread 가 GC 된 뒤 언젠가 또는 destroySingletons 에서 destroy 된다
+	Runnable decorateThreadScopedTask(Runnable task);
 	void destroySingletons();
 }
@@ -4,4 +4,9 @@ import org.springframework.beans.factory.ListableBeanFactory;
 
 public interface ConfigurableListableBeanFactory extends ListableBeanFactory, ConfigurableBeanFactory, AutowireCapableBeanFactory{
 	void preInstantiateSingletons();
+	
+	//이후 bean definition, alias 등록을 막고 읽기 전용 구조로 바꾼다
+	void freeze();
+	
+	boolean isFrozen();
 }
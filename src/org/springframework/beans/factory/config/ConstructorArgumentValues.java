@@ -1,30 +1,55 @@
 package org.springframework.beans.factory.config;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class ConstructorArgumentValues {
-	//숫자로 조회하는 맵
-	private Map indexedArgumentValues = new HashMap();
+	private static final ValueHolder[] EMPTY_VALUE_HOLDERS = new ValueHolder[0];
 	
+	//index 위치에 저장, 비어 있는 index 는 null
+	private ValueHolder[] indexedArgumentValues = EMPTY_VALUE_HOLDERS;
 	
-	private Set genericArgumentValues = new HashSet();
+	private int indexedArgumentCount;
+	
+	//추가한 순서, genericArgumentCount 까지만 사용
+	private ValueHolder[] genericArgumentValues = EMPTY_VALUE_HOLDERS;
+	
+	private int genericArgumentCount;
+	
+	//인자를 추가할때 마다 증가, 이 값으로 만든 캐쉬가 지난건지 알기 위해
+	private int modificationCount;
 	
 	public void addIndexedArgumentValue(int index, Object value) {
-		this.indexedArgumentValues.put(new Integer(index), new ValueHolder(value));
+		addIndexedArgumentValue(index, new ValueHolder(value));
 	}
 	
 	public void addIndexedArgumentValue(int index, Object value, String type) {
-		this.indexedArgumentValues.put(new Integer(index), new ValueHolder(value, type));
+		addIndexedArgumentValue(index, new ValueHolder(value, type));
+	}
+	
+	private void addIndexedArgumentValue(int index, ValueHolder valueHolder) {
+		if (index < 0) {
+			throw new IllegalArgumentException("Constructor argument index must not be negative");
+		}
+		if (index >= this.indexedArgumentValues.length) {
+			ValueHolder[] newValues = new ValueHolder[index + 1];
+			System.arraycopy(this.indexedArgumentValues, 0, newValues, 0, this.indexedArgumentValues.length);
+			this.indexedArgumentValues = newValues;
+		}
+		if (this.indexedArgumentValues[index] == null) {
+			this.indexedArgumentCount++;
+		}
+		this.modificationCount++;
+		this.indexedArgumentValues[index] = valueHolder;
 	}
 	
 	//requiredType 은 map 에서 가져온 ValueHolder name 하고 같은지 검사하기 위해 사용
 	public ValueHolder getIndexedArgumentValue(int index, Class requiredType) {
-		ValueHolder valueHolder = (ValueHolder) this.indexedArgumentValues.get(new Integer(index));
+		ValueHolder valueHolder = getIndexedArgumentValue(index);
 		if (valueHolder != null) {
 			if (valueHolder.getType() == null || requiredType.getName().equals(valueHolder.getType())) {
 				return valueHolder;
@@ -33,21 +58,53 @@ public class ConstructorArgumentValues {
 		return null;
 	}
 	
+	//빈 생성 때 마다 읽는 곳은 복사본 대신 index 로 읽는다
+	//가장 큰 index + 1, 그 아래 비어 있는 index 는 getIndexedArgumentValue(index) 가 null
+	public int getIndexedArgumentBound() {
+		return this.indexedArgumentValues.length;
+	}
+	
+	public ValueHolder getIndexedArgumentValue(int index) {
+		return (index >= 0 && index < this.indexedArgumentValues.length ? this.indexedArgumentValues[index] : null);
+	}
+	
+	//Integer index -> ValueHolder, index 순서
+	//배열에서 만든 것이라 고쳐도 반영되지 않으니 읽기 전용으로 돌려준다, 추가는 addIndexedArgumentValue
 	public Map getIndexedArgumentValues() {
-		return indexedArgumentValues;
+		Map result = new LinkedHashMap();
+		for (int i = 0; i < this.indexedArgumentValues.length; i++) {
+			if (this.indexedArgumentValues[i] != null) {
+				result.put(Integer.valueOf(i), this.indexedArgumentValues[i]);
+			}
+		}
+		return Collections.unmodifiableMap(result);
 	}
 	
 	public void addGenericArgumentValue(Object value) {
-		this.genericArgumentValues.add(new ValueHolder(value));
+		addGenericArgumentValue(new ValueHolder(value));
 	}
 	
 	public void addGenericArgumentValue(Object value, String type) {
-		this.genericArgumentValues.add(new ValueHolder(value, type));
+		addGenericArgumentValue(new ValueHolder(value, type));
+	}
+	
+	private void addGenericArgumentValue(ValueHolder valueHolder) {
+		if (this.genericArgumentCount == this.genericArgumentValues.length) {
+			ValueHolder[] newValues = new ValueHolder[this.genericArgumentCount < 2 ? 2 : this.genericArgumentCount * 2];
+			System.arraycopy(this.genericArgumentValues, 0, newValues, 0, this.genericArgumentCount);
+			this.genericArgumentValues = newValues;
+		}
+		this.genericArgumentValues[this.genericArgumentCount++] = valueHolder;
+		this.modificationCount++;
+	}
+	
+	public int getModificationCount() {
+		return this.modificationCount;
 	}
 	
 	public ValueHolder getGenericArgumentValue(Class requiredType) {
-		for (Iterator it = this.genericArgumentValues.iterator(); it.hasNext();) {
-			ValueHolder valueHolder = (ValueHolder) it.next();
+		for (int i = 0; i < this.genericArgumentCount; i++) {
+			ValueHolder valueHolder = this.genericArgumentValues[i];
 			Object value = valueHolder.getValue();
 			if (valueHolder.getType() != null) {
 				if (valueHolder.getType().equals(requiredType.getName())) {
@@ -61,8 +118,25 @@ public class ConstructorArgumentValues {
 		return null;
 	}
 	
+	public int getGenericArgumentCount() {
+		return this.genericArgumentCount;
+	}
+	
+	//추가한 순서로 i 번째
+	public ValueHolder getGenericArgumentValueAt(int i) {
+		if (i < 0 || i >= this.genericArgumentCount) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.genericArgumentCount);
+		}
+		return this.genericArgumentValues[i];
+	}
+	
+	//추가한 순서, getIndexedArgumentValues 처럼 읽기 전용
 	public Set getGenericArgumentValues() {
-		return this.genericArgumentValues;
+		Set result = new LinkedHashSet();
+		for (int i = 0; i < this.genericArgumentCount; i++) {
+			result.add(this.genericArgumentValues[i]);
+		}
+		return Collections.unmodifiableSet(result);
 	}
 	
 	public ValueHolder getArgumentValue(int index, Class requiredType) {
@@ -74,11 +148,29 @@ public class ConstructorArgumentValues {
 	}
 	
 	public int getNrOfArguments() {
-		return this.indexedArgumentValues.size() + this.genericArgumentValues.size();
+		return this.indexedArgumentCount + this.genericArgumentCount;
 	}
 	
 	public boolean isEmpty() {
-		return this.indexedArgumentValues.isEmpty() && this.genericArgumentValues.isEmpty();
+		return getNrOfArguments() == 0;
+	}
+	
+	//배열을 개수에 맞게 줄이고 type 이름과 문자열 값을 intern
+	public void compact() {
+		if (this.genericArgumentValues.length != this.genericArgumentCount) {
+			ValueHolder[] newValues = (this.genericArgumentCount > 0 ?
+					new ValueHolder[this.genericArgumentCount] : EMPTY_VALUE_HOLDERS);
+			System.arraycopy(this.genericArgumentValues, 0, newValues, 0, this.genericArgumentCount);
+			this.genericArgumentValues = newValues;
+		}
+		for (int i = 0; i < this.indexedArgumentValues.length; i++) {
+			if (this.indexedArgumentValues[i] != null) {
+				this.indexedArgumentValues[i].intern();
+			}
+		}
+		for (int i = 0; i < this.genericArgumentCount; i++) {
+			this.genericArgumentValues[i].intern();
+		}
 	}
 	
 	public static class ValueHolder {
@@ -106,5 +198,14 @@ public class ConstructorArgumentValues {
 			return type;
 		}
 		
+		private void intern() {
+			if (this.type != null) {
+				this.type = this.type.intern();
+			}
+			if (this.value instanceof String) {
+				this.value = ((String) this.value).intern();
+			}
+		}
+		
 	}
 }
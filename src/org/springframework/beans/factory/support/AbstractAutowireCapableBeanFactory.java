@@ -4,6 +4,7 @@ import java.beans.PropertyDescriptor;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -11,10 +12,12 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
@@ -28,10 +31,11 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanCreationListener;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
@@ -44,7 +48,17 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		DisposableBean.class.getName();
 	}
 
-	private final Set disposableInnerBeans = Collections.synchronizedSet(new HashSet());
+	// bean name -> 그 빈의 DisposableBean inner bean List
+	private final ConcurrentHashMap disposableInnerBeans = new ConcurrentHashMap();
+
+	// bean name -> 그 빈에 의존하는 bean name Set
+	private final Map dependentBeanMap = new ConcurrentHashMap();
+
+	// bean name -> 그 빈이 의존하는 bean name Set
+	private final Map dependenciesForBeanMap = new ConcurrentHashMap();
+
+	// lazy-init 싱글톤 참조를 인터페이스 프록시로 주입할지 여부
+	private boolean lazyInitProxies = false;
 
 	public AbstractAutowireCapableBeanFactory() {
 	}
@@ -53,6 +67,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		super(parentBeanFactory);
 	}
 
+	// 프로퍼티 타입이 인터페이스이고 아직 생성 안된 lazy-init 싱글톤을 참조하면
+	// 프록시를 주입하고 실제 빈은 처음 메서드가 호출될때 생성한다
+	public void setLazyInitProxies(boolean lazyInitProxies) {
+		this.lazyInitProxies = lazyInitProxies;
+	}
+
+	public boolean isLazyInitProxies() {
+		return lazyInitProxies;
+	}
+
 	public Object autowire(Class beanClass, int autowireMode, boolean dependencyCheck) throws BeansException {
 		RootBeanDefinition bd = new RootBeanDefinition(beanClass, autowireMode, dependencyCheck);
 		if (bd.getResolvedAutowireMode() == AUTOWIRE_CONSTRUCTOR) {
@@ -108,57 +132,100 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					+ "]");
 		}
 
-		if (mergedBeanDefinition.getDependsOn() != null) {
-			for (int i = 0; i < mergedBeanDefinition.getDependsOn().length; i++) {
-				// 빈객체 생성??
-				getBean(mergedBeanDefinition.getDependsOn()[i]);
+		// listener 가 없으면 시간을 재지 않는다
+		BeanCreationListener[] listeners = getBeanCreationListeners();
+		boolean timed = (listeners.length > 0);
+		long start = 0;
+		if (timed) {
+			for (int i = 0; i < listeners.length; i++) {
+				listeners[i].beanCreationStarted(beanName);
 			}
+			start = System.nanoTime();
 		}
+		boolean success = false;
+		try {
+			if (mergedBeanDefinition.getDependsOn() != null) {
+				for (int i = 0; i < mergedBeanDefinition.getDependsOn().length; i++) {
+					// 빈객체 생성??
+					getBean(mergedBeanDefinition.getDependsOn()[i]);
+					if (mergedBeanDefinition.isSingleton()) {
+						registerDependentBean(mergedBeanDefinition.getDependsOn()[i], beanName);
+					}
+				}
+			}
 
-		BeanWrapper instanceWrapper = null;
+			long phaseStart = (timed ? System.nanoTime() : 0);
+			BeanWrapper instanceWrapper = null;
 
-		if (mergedBeanDefinition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR
-				|| mergedBeanDefinition.hasConstructorArgumentValues()) {
-			instanceWrapper = autowireConstructor(beanName, mergedBeanDefinition);
-		} else {
-			instanceWrapper = new BeanWrapperImpl(mergedBeanDefinition.getBeanClass());
-			initBeanWrapper(instanceWrapper);
-		}
-		Object bean = instanceWrapper.getWrappedInstance();
+			if (mergedBeanDefinition.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR
+					|| mergedBeanDefinition.hasConstructorArgumentValues()) {
+				instanceWrapper = autowireConstructor(beanName, mergedBeanDefinition);
+			} else {
+				instanceWrapper = new BeanWrapperImpl(mergedBeanDefinition.getBeanClass());
+				initBeanWrapper(instanceWrapper);
+			}
+			Object bean = instanceWrapper.getWrappedInstance();
 
-		if (mergedBeanDefinition.isSingleton()) {
-			addSingleton(beanName, bean);
-		}
+			if (mergedBeanDefinition.isSingleton()) {
+				addEarlySingleton(beanName, bean);
+			}
+			phaseStart = firePhase(listeners, beanName, BeanCreationListener.PHASE_INSTANTIATE, phaseStart);
 
-		populateBean(beanName, mergedBeanDefinition, instanceWrapper);
+			populateBean(beanName, mergedBeanDefinition, instanceWrapper);
+			phaseStart = firePhase(listeners, beanName, BeanCreationListener.PHASE_POPULATE, phaseStart);
 
-		try {
-			// bean == mergedBeanDefinition 에 있는 bean
-			if (bean instanceof BeanNameAware) {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Invoking setBeanName() on BeanNameAware bean '" + beanName + "'");
+			try {
+				// bean == mergedBeanDefinition 에 있는 bean
+				if (bean instanceof BeanNameAware) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Invoking setBeanName() on BeanNameAware bean '" + beanName + "'");
+					}
+					((BeanNameAware) bean).setBeanName(beanName);
 				}
-				((BeanNameAware) bean).setBeanName(beanName);
-			}
 
-			if (bean instanceof BeanFactoryAware) {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Invoking setBeanFactory() on BeanFactoryAware bean '" + beanName + "'");
+				if (bean instanceof BeanFactoryAware) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Invoking setBeanFactory() on BeanFactoryAware bean '" + beanName + "'");
+					}
+					((BeanFactoryAware) bean).setBeanFactory(this);
+				}
+				phaseStart = firePhase(listeners, beanName, BeanCreationListener.PHASE_AWARE, phaseStart);
+
+				bean = applyBeanPostProcessorsBeforeInitialization(bean, beanName);
+				phaseStart = firePhase(listeners, beanName, BeanCreationListener.PHASE_BEFORE_INITIALIZATION, phaseStart);
+				invokeInitMethods(bean, beanName, mergedBeanDefinition);
+				phaseStart = firePhase(listeners, beanName, BeanCreationListener.PHASE_INIT, phaseStart);
+				bean = applyBeanPostProcessorsAfterInitialization(bean, beanName);
+				firePhase(listeners, beanName, BeanCreationListener.PHASE_AFTER_INITIALIZATION, phaseStart);
+			} catch (InvocationTargetException ex) {
+				throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
+						"Initialization of bean failed", ex.getTargetException());
+			} catch (Exception ex) {
+				throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
+						"Initialization of bean failed", ex);
+			}
+			success = true;
+			return bean;
+		} finally {
+			if (timed) {
+				long elapsed = System.nanoTime() - start;
+				for (int i = 0; i < listeners.length; i++) {
+					listeners[i].beanCreationFinished(beanName, elapsed, success);
 				}
-				((BeanFactoryAware) bean).setBeanFactory(this);
 			}
+		}
+	}
 
-			bean = applyBeanPostProcessorsBeforeInitialization(bean, beanName);
-			invokeInitMethods(bean, beanName, mergedBeanDefinition);
-			bean = applyBeanPostProcessorsAfterInitialization(bean, beanName);
-		} catch (InvocationTargetException ex) {
-			throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
-					"Initialization of bean failed", ex.getTargetException());
-		} catch (Exception ex) {
-			throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
-					"Initialization of bean failed", ex);
+	// 단계 시간 알리고 다음 단계 시작 시간 리턴
+	private long firePhase(BeanCreationListener[] listeners, String beanName, int phase, long phaseStart) {
+		if (listeners.length == 0) {
+			return 0;
+		}
+		long now = System.nanoTime();
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].beanCreationPhase(beanName, phase, now - phaseStart);
 		}
-		return bean;
+		return now;
 	}
 
 	protected BeanWrapper autowireConstructor(String beanName, RootBeanDefinition mergedBeanDefinition)
@@ -170,19 +237,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		int minNrOfArgs = 0;
 		if (cargs != null) {
 			minNrOfArgs = cargs.getNrOfArguments();
-			for (Iterator it = cargs.getIndexedArgumentValues().entrySet().iterator(); it.hasNext();) {
-				Map.Entry entry = (Map.Entry) it.next();
-				int index = ((Integer) entry.getKey()).intValue();
-				if (index < 0) {
-					throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
-							"Invalid constructor argument index: " + index);
+			//음수 index 는 ConstructorArgumentValues 에 추가할때 막힌다
+			for (int index = 0; index < cargs.getIndexedArgumentBound(); index++) {
+				ConstructorArgumentValues.ValueHolder valueHolder = cargs.getIndexedArgumentValue(index);
+				if (valueHolder == null) {
+					continue;
 				}
 				if (index > minNrOfArgs) {
 					minNrOfArgs = index + 1;
 				}
 				String argName = "constructor argument with index " + index;
-				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) entry
-						.getValue();
 
 				// cargs -> resolvedValues 복사??
 				Object resolvedValue = resolveValueIfNecessary(beanName, mergedBeanDefinition, argName,
@@ -191,8 +255,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				resolvedValues.addIndexedArgumentValue(index, resolvedValue, valueHolder.getType());
 			}
 
-			for (Iterator it = cargs.getGenericArgumentValues().iterator(); it.hasNext();) {
-				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) it.next();
+			for (int i = 0; i < cargs.getGenericArgumentCount(); i++) {
+				ConstructorArgumentValues.ValueHolder valueHolder = cargs.getGenericArgumentValueAt(i);
 				String argName = "constructor argument";
 				Object resolvedValue = resolveValueIfNecessary(beanName, mergedBeanDefinition, argName,
 						valueHolder.getValue());
@@ -200,21 +264,35 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 		}
 
-		Constructor[] constructors = mergedBeanDefinition.getBeanClass().getConstructors();
-
-		// 생성자 파라미터 개수에 맞게 정렬
-		Arrays.sort(constructors, new Comparator() {
-			public int compare(Object o1, Object o2) {
-				int c1pl = ((Constructor) o1).getParameterTypes().length;
-				int c2pl = ((Constructor) o2).getParameterTypes().length;
-				return (new Integer(c1pl)).compareTo(new Integer(c2pl)) * -1;
-			}
-		});
-
+		BeanCreationPlan plan = getCreationPlan(mergedBeanDefinition);
 		BeanWrapperImpl bw = new BeanWrapperImpl();
 		// bw 객체에 beanFactory 객체에 있는 CustomEditor 저장
 		initBeanWrapper(bw);
 
+		// 전에 선택된 생성자가 있으면 그 생성자로만 인자를 만들어 본다
+		Constructor resolvedConstructor = plan.getResolvedConstructor();
+		if (resolvedConstructor != null) {
+			try {
+				Object[] args = getConstructorArguments(beanName, mergedBeanDefinition, resolvedConstructor,
+						resolvedValues, bw);
+				if (isAssignable(resolvedConstructor.getParameterTypes(), args)) {
+					bw.setWrappedInstance(BeanUtils.instantiateClass(resolvedConstructor, args));
+					if (logger.isDebugEnabled()) {
+						logger.debug("Bean '" + beanName + "' instantiated via cached constructor [" + resolvedConstructor
+								+ "]");
+					}
+					return bw;
+				}
+			} catch (BeansException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Cached constructor [" + resolvedConstructor + "] of bean '" + beanName
+							+ "' not applicable anymore: " + ex.getMessage());
+				}
+			}
+		}
+
+		Constructor[] constructors = getSortedConstructors(mergedBeanDefinition, plan);
+
 		Constructor constructorToUse = null;
 		Object[] argsToUse = null;
 		int minTypeDiffWeight = Integer.MAX_VALUE;
@@ -230,38 +308,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 									+ beanName
 									+ "' (hint: specify index arguments for simple parameters to avoid type ambiguities)");
 				}
-				Class[] argTypes = constructor.getParameterTypes();
-				Object[] args = new Object[argTypes.length];
-				for (int j = 0; j < argTypes.length; j++) {
-					ConstructorArgumentValues.ValueHolder valueHolder = resolvedValues.getArgumentValue(j, argTypes[j]);
-					if (valueHolder != null) {
-						// customEditor이 있으면
-						if (!getCustomEditors().isEmpty()) {
-							synchronized (this) {
-								args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
-							}
-						} else {
-							args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
-						}
-					} else {
-						if (mergedBeanDefinition.getResolvedAutowireMode() != RootBeanDefinition.AUTOWIRE_CONSTRUCTOR) {
-							throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
-									"Did you specify the correct bean references as generic constructor arguments?");
-						}
-						Map matchingBeans = findMatchingBeans(argTypes[j]);
-						if (matchingBeans == null || matchingBeans.size() != 1) {
-							throw new UnsatisfiedDependencyException(beanName, j, argTypes[j], "There are "
-									+ matchingBeans.size() + " beans of type [" + argTypes[j]
-									+ "] for autowiring constructor. "
-									+ "There should have been 1 to be able to autowire constructor of bean '"
-									+ beanName + "'.");
-						}
-						args[j] = matchingBeans.values().iterator().next();
-						logger.info("Autowiring by type from bean name '" + beanName
-								+ "' via constructor to bean named '" + matchingBeans.keySet().iterator().next() + "'");
-					}
-				}
-				int typeDiffWeight = getTypeDifferenceWeight(argTypes, args);
+				Object[] args = getConstructorArguments(beanName, mergedBeanDefinition, constructor, resolvedValues, bw);
+				int typeDiffWeight = getTypeDifferenceWeight(constructor.getParameterTypes(), args);
 				if (typeDiffWeight < minTypeDiffWeight) {
 					constructorToUse = constructor;
 					argsToUse = args;
@@ -285,11 +333,95 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
 					"Could not resolve matching constructor");
 		}
+		plan.setResolvedConstructor(constructorToUse);
 		bw.setWrappedInstance(BeanUtils.instantiateClass(constructorToUse, argsToUse));
 		logger.info("Bean '" + beanName + "' instantiated via constructor [" + constructorToUse + "]");
 		return bw;
 	}
 
+	// 생성자 파라미터 개수가 많은 순서로 정렬, 클레스 별로 한번만
+	private Constructor[] getSortedConstructors(RootBeanDefinition mergedBeanDefinition, BeanCreationPlan plan) {
+		Constructor[] constructors = plan.getSortedConstructors();
+		if (constructors == null) {
+			constructors = mergedBeanDefinition.getBeanClass().getConstructors();
+			Arrays.sort(constructors, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					int c1pl = ((Constructor) o1).getParameterTypes().length;
+					int c2pl = ((Constructor) o2).getParameterTypes().length;
+					return (c1pl < c2pl ? 1 : (c1pl > c2pl ? -1 : 0));
+				}
+			});
+			plan.setSortedConstructors(constructors);
+		}
+		return constructors;
+	}
+
+	// 생성자 파라미터 타입에 맞게 인자 만들기, 없으면 autowire
+	private Object[] getConstructorArguments(String beanName, RootBeanDefinition mergedBeanDefinition,
+			Constructor constructor, ConstructorArgumentValues resolvedValues, BeanWrapperImpl bw) throws BeansException {
+		Class[] argTypes = constructor.getParameterTypes();
+		Object[] args = new Object[argTypes.length];
+		for (int j = 0; j < argTypes.length; j++) {
+			ConstructorArgumentValues.ValueHolder valueHolder = resolvedValues.getArgumentValue(j, argTypes[j]);
+			if (valueHolder != null) {
+				// customEditor이 있으면
+				if (!getCustomEditors().isEmpty()) {
+					synchronized (this) {
+						args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
+					}
+				} else {
+					args[j] = bw.doTypeConversionIfNecessary(valueHolder.getValue(), argTypes[j]);
+				}
+			} else {
+				if (mergedBeanDefinition.getResolvedAutowireMode() != RootBeanDefinition.AUTOWIRE_CONSTRUCTOR) {
+					throw new UnsatisfiedDependencyException(beanName, j, argTypes[j],
+							"Did you specify the correct bean references as generic constructor arguments?");
+				}
+				//이름으로 먼저 고르고 하나일때만 생성
+				String[] matchingBeanNames = findMatchingBeanNames(argTypes[j]);
+				if (matchingBeanNames.length != 1) {
+					throw new UnsatisfiedDependencyException(beanName, j, argTypes[j], "There are "
+							+ matchingBeanNames.length + " beans of type [" + argTypes[j]
+							+ "] for autowiring constructor. "
+							+ "There should have been 1 to be able to autowire constructor of bean '"
+							+ beanName + "'.");
+				}
+				args[j] = getBean(matchingBeanNames[0]);
+				if (mergedBeanDefinition.isSingleton()) {
+					registerDependentBean(matchingBeanNames[0], beanName);
+				}
+				logger.info("Autowiring by type from bean name '" + beanName
+						+ "' via constructor to bean named '" + matchingBeanNames[0] + "'");
+			}
+		}
+		return args;
+	}
+
+	private boolean isAssignable(Class[] argTypes, Object[] args) {
+		for (int i = 0; i < argTypes.length; i++) {
+			if (!BeanUtils.isAssignable(argTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 정의 별로 캐쉬된 생성 정보
+	// ignoreDependencyType 이 바뀌었거나 만든 뒤에 프로퍼티, 생성자 인자가 바뀌었으면 새로 만든다
+	protected BeanCreationPlan getCreationPlan(RootBeanDefinition mergedBeanDefinition) {
+		BeanCreationPlan plan = mergedBeanDefinition.creationPlan;
+		int version = getIgnoredDependencyTypesVersion();
+		int propertyValuesModificationCount = mergedBeanDefinition.getPropertyValues().getModificationCount();
+		ConstructorArgumentValues cargs = mergedBeanDefinition.getConstructorArgumentValues();
+		int constructorArgumentsModificationCount = (cargs != null ? cargs.getModificationCount() : 0);
+		if (plan == null ||
+				!plan.isUpToDate(version, propertyValuesModificationCount, constructorArgumentsModificationCount)) {
+			plan = new BeanCreationPlan(version, propertyValuesModificationCount, constructorArgumentsModificationCount);
+			mergedBeanDefinition.creationPlan = plan;
+		}
+		return plan;
+	}
+
 	// 클레스 몇개의 개층 구조로 되어 있는지 검사??
 	private int getTypeDifferenceWeight(Class[] argTypes, Object[] args) {
 		int result = 0;
@@ -349,6 +481,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			if (containsBean(propertyName)) {
 				Object bean = getBean(propertyName);
 				pvs.addPropertyValue(propertyName, bean);
+				if (mergedBeanDefinition.isSingleton()) {
+					registerDependentBean(propertyName, beanName);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("Added autowiring by name from bean name '" + beanName + "' via property '"
 							+ propertyName + "' to bean named '" + propertyName + "'");
@@ -369,17 +504,20 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			String propertyName = propertyNames[i];
 			// 클레스 타입 가져오기
 			Class requiredType = bw.getPropertyDescriptor(propertyName).getPropertyType();
-			Map matchingBeans = findMatchingBeans(requiredType);
+			String[] matchingBeanNames = findMatchingBeanNames(requiredType);
 
-			// 같은게 1개라면
-			if (matchingBeans != null && matchingBeans.size() == 1) {
-				pvs.addPropertyValue(propertyName, matchingBeans.values().iterator().next());
+			// 같은게 1개라면 그 빈만 생성
+			if (matchingBeanNames.length == 1) {
+				pvs.addPropertyValue(propertyName, getBean(matchingBeanNames[0]));
+				if (mergedBeanDefinition.isSingleton()) {
+					registerDependentBean(matchingBeanNames[0], beanName);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("Autowiring by type from bean name '" + beanName + "' via property '" + propertyName
-							+ "' to bean named '" + matchingBeans.keySet().iterator().next() + "'");
+							+ "' to bean named '" + matchingBeanNames[0] + "'");
 				}
-			} else if (matchingBeans != null && matchingBeans.size() > 1) {
-				throw new UnsatisfiedDependencyException(beanName, propertyName, "There are " + matchingBeans.size()
+			} else if (matchingBeanNames.length > 1) {
+				throw new UnsatisfiedDependencyException(beanName, propertyName, "There are " + matchingBeanNames.length
 						+ " beans of type [" + requiredType + "] for autowire by type. "
 						+ "There should have been 1 to be able to autowire property '" + propertyName + "' of bean '"
 						+ beanName + "'.");
@@ -399,13 +537,20 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (dependencyCheck == RootBeanDefinition.DEPENDENCY_CHECK_NONE)
 			return;
 
+		// autowire 가 없으면 검사할 프로퍼티 값이 매번 같으므로 한번 통과하면 다시 안한다
+		boolean cacheable = (pvs == mergedBeanDefinition.getPropertyValues());
+		BeanCreationPlan plan = getCreationPlan(mergedBeanDefinition);
+		if (cacheable && plan.isDependencyCheckPassed()) {
+			return;
+		}
+
 		Set ignoreTypes = getIgnoredDependencyTypes();
 		PropertyDescriptor[] pds = bw.getPropertyDescriptors();
 		for (int i = 0; i < pds.length; i++) {
 
 			// ignored 에 있는거 제외 하고
 			if (pds[i].getWriteMethod() != null && !ignoreTypes.contains(pds[i].getPropertyType())
-					&& pvs.getPropertyValue(pds[i].getName()) == null) {
+					&& !pvs.contains(pds[i].getName())) {
 				boolean isSimple = BeanUtils.isSimpleProperty(pds[i].getPropertyType());
 				boolean unsatisfied = (dependencyCheck == RootBeanDefinition.DEPENDENCY_CHECK_ALL)
 						|| (isSimple && dependencyCheck == RootBeanDefinition.DEPENDENCY_CHECK_SIMPLE)
@@ -415,9 +560,22 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				}
 			}
 		}
+		if (cacheable) {
+			plan.setDependencyCheckPassed(true);
+		}
 	}
 
 	protected String[] unsatisfiedObjectProperties(RootBeanDefinition mergedBeanDefinition, BeanWrapper bw) {
+		BeanCreationPlan plan = getCreationPlan(mergedBeanDefinition);
+		String[] propertyNames = plan.getUnsatisfiedObjectProperties();
+		if (propertyNames == null) {
+			propertyNames = findUnsatisfiedObjectProperties(mergedBeanDefinition, bw);
+			plan.setUnsatisfiedObjectProperties(propertyNames);
+		}
+		return propertyNames;
+	}
+
+	private String[] findUnsatisfiedObjectProperties(RootBeanDefinition mergedBeanDefinition, BeanWrapper bw) {
 		Set result = new TreeSet();
 		Set ignoreTypes = getIgnoredDependencyTypes();
 		PropertyDescriptor[] pds = bw.getPropertyDescriptors();
@@ -425,7 +583,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			String name = pds[i].getName();
 			if (pds[i].getWriteMethod() != null && !BeanUtils.isSimpleProperty(pds[i].getPropertyType())
 					&& !ignoreTypes.contains(pds[i].getPropertyType())
-					&& mergedBeanDefinition.getPropertyValues().getPropertyValue(name) == null) {
+					&& !mergedBeanDefinition.getPropertyValues().contains(name)) {
 				result.add(name);
 			}
 		}
@@ -437,13 +595,23 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (pvs == null) {
 			return;
 		}
-		MutablePropertyValues deepCopy = new MutablePropertyValues(pvs);
-		PropertyValue[] pvals = deepCopy.getPropertyValues();
-		for (int i = 0; i < pvals.length; i++) {
-			Object value = resolveValueIfNecessary(beanName, mergedBeanDefinition, pvals[i].getName(),
-					pvals[i].getValue());
-			PropertyValue pv = new PropertyValue(pvals[i].getName(), value);
-			deepCopy.setPropertyValueAt(pv, i);
+		// 참조, inner bean, 컬렉션만 resolve 하고 나머지 값은 그대로 사용
+		// PropertyValue 를 만들지 않게 index 로 읽는다
+		MutablePropertyValues mpvs = (pvs instanceof MutablePropertyValues ?
+				(MutablePropertyValues) pvs : new MutablePropertyValues(pvs));
+		MutablePropertyValues deepCopy = new MutablePropertyValues();
+		for (int i = 0; i < mpvs.size(); i++) {
+			String propertyName = mpvs.getName(i);
+			Object originalValue = mpvs.getValue(i);
+			Object value = null;
+			if (this.lazyInitProxies && originalValue instanceof RuntimeBeanReference) {
+				value = getLazyInitProxy(beanName, mergedBeanDefinition, bw, propertyName,
+						(RuntimeBeanReference) originalValue);
+			}
+			if (value == null) {
+				value = resolveValueIfNecessary(beanName, mergedBeanDefinition, propertyName, originalValue);
+			}
+			deepCopy.addPropertyValue(propertyName, value);
 		}
 		try {
 			// 있으면 동기?
@@ -473,7 +641,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			// 모르겠음 바로 mergedBeanDefinition 넣어도 될거 같은데
 			Object bean = createBean(innerBeanName, getMergedBeanDefinition(innerBeanName, bd));
 			if (bean instanceof DisposableBean) {
-				this.disposableInnerBeans.add(bean);
+				List innerBeans = (List) this.disposableInnerBeans.get(beanName);
+				if (innerBeans == null) {
+					innerBeans = Collections.synchronizedList(new ArrayList());
+					List existingInnerBeans = (List) this.disposableInnerBeans.putIfAbsent(beanName, innerBeans);
+					if (existingInnerBeans != null) {
+						innerBeans = existingInnerBeans;
+					}
+				}
+				innerBeans.add(bean);
 			}
 			// 빈에 있는 실객체 가져오기
 			return getObjectForSharedInstance(innerBeanName, bean);
@@ -493,12 +669,50 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	}
 
 	// 빈 가져오기
+	// 프록시로 주입할수 없으면 null
+	private Object getLazyInitProxy(String beanName, RootBeanDefinition mergedBeanDefinition, BeanWrapper bw,
+			String propertyName, RuntimeBeanReference ref) {
+		String refName = transformedBeanName(ref.getBeanName());
+		if (containsSingleton(refName) || !containsBeanDefinition(refName)) {
+			return null;
+		}
+		Class propertyType = null;
+		try {
+			propertyType = bw.getPropertyDescriptor(propertyName).getPropertyType();
+		} catch (BeansException ex) {
+			// nested 프로퍼티 등은 그냥 getBean
+			return null;
+		}
+		if (propertyType == null || !propertyType.isInterface()) {
+			return null;
+		}
+		RootBeanDefinition refDefinition = getMergedBeanDefinition(refName, false);
+		if (!refDefinition.isSingleton() || !refDefinition.isLazyInit() || !refDefinition.hasBeanClass()
+				|| FactoryBean.class.isAssignableFrom(refDefinition.getBeanClass())
+				|| !propertyType.isAssignableFrom(refDefinition.getBeanClass())) {
+			return null;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Injecting lazy-init proxy for bean '" + refName + "' into property '" + propertyName
+					+ "' of bean '" + beanName + "'");
+		}
+		if (mergedBeanDefinition.isSingleton()) {
+			registerDependentBean(refName, beanName);
+		}
+		return Proxy.newProxyInstance(propertyType.getClassLoader(), new Class[] { propertyType },
+				new LazyInitTargetInvocationHandler(getBeanHandle(refName)));
+	}
+
 	protected Object resolveReference(RootBeanDefinition mergedBeanDefinition, String beanName, String argName,
 			RuntimeBeanReference ref) throws BeansException {
 		try {
 			logger.debug("Resolving reference from property '" + argName + "' in bean '" + beanName + "' to bean '"
 					+ ref.getBeanName() + "'");
-			return getBean(ref.getBeanName());
+			Object bean = getBean(ref.getBeanName());
+			if (mergedBeanDefinition.isSingleton()) {
+				registerDependentBean(ref.getBeanName(), beanName);
+			}
+			return bean;
 		} catch (BeansException ex) {
 			throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
 					"Can't resolve reference to bean '" + ref.getBeanName() + "' while setting property '" + argName
@@ -546,29 +760,64 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (mergedBeanDefinition.getInitMethodName() != null) {
 			logger.debug("Calling custom init method '" + mergedBeanDefinition.getInitMethodName()
 					+ "' on bean with beanName '" + beanName + "'");
-			// init 메서드 실행
-			bean.getClass().getMethod(mergedBeanDefinition.getInitMethodName(), null).invoke(bean, null);
+			// init 메서드 실행, BeanPostProcessor 가 다른 객체를 줄수 있으니 찾은 클레스가 같을때만 캐쉬 사용
+			// 부모 클레스에 선언된 init 메서드도 빈 클레스로 캐쉬된다
+			BeanCreationPlan plan = getCreationPlan(mergedBeanDefinition);
+			Method initMethod = plan.getInitMethod(bean.getClass());
+			if (initMethod == null) {
+				initMethod = bean.getClass().getMethod(mergedBeanDefinition.getInitMethodName(), null);
+				plan.setInitMethod(bean.getClass(), initMethod);
+			}
+			initMethod.invoke(bean, null);
 		}
 	}
 
-	public void destroySingletons() {
-		super.destroySingletons();
-		synchronized (this.disposableInnerBeans) {
+	// 싱글톤이 다 destroy 된 다음에 불린다
+	protected void destroyInnerBeans(long deadline) {
+		List innerBeanList = new ArrayList();
+		for (Iterator it = this.disposableInnerBeans.keySet().iterator(); it.hasNext();) {
+			List innerBeans = (List) this.disposableInnerBeans.remove(it.next());
+			if (innerBeans != null) {
+				synchronized (innerBeans) {
+					innerBeanList.addAll(innerBeans);
+				}
+			}
+		}
+		Object[] innerBeans = innerBeanList.toArray();
+		String[] innerBeanNames = new String[innerBeans.length];
+		for (int i = 0; i < innerBeans.length; i++) {
+			innerBeanNames[i] = "(inner bean of type " + innerBeans[i].getClass().getName() + ")";
+		}
+		if (isParallelDestroy() && innerBeans.length > 0) {
+			// 1회용 beans 는 서로 의존이 없다
+			List unfinished = destroyInParallel(innerBeanNames, innerBeans, new int[innerBeans.length],
+					new List[innerBeans.length], deadline);
+			if (!unfinished.isEmpty()) {
+				logger.warn("Shutdown timeout exceeded: " + unfinished.size() + " inner beans not destroyed");
+			}
+		} else {
 			// 1회용 beans 제거
-			for (Iterator it = this.disposableInnerBeans.iterator(); it.hasNext();) {
-				Object bean = it.next();
-				it.remove();
-				destroyBean("(inner bean of type " + bean.getClass().getName() + ")", bean);
+			for (int i = 0; i < innerBeans.length; i++) {
+				destroyBean(innerBeanNames[i], innerBeans[i]);
 			}
 		}
 	}
 
 	protected void destroyBean(String beanName, Object bean) {
-		logger.debug("Retrieving depending beans for bean '" + beanName + "'");
-		String[] dependingBeans = getDependingBeanNames(beanName);
-		if (dependingBeans != null) {
-			for (int i = 0; i < dependingBeans.length; i++) {
-				destroySingleton(dependingBeans[i]);
+		// 등록된 싱글톤처럼 definition 이 없으면 예외 만들지 않고 넘어간다
+		RootBeanDefinition bd = null;
+		if (containsBeanDefinition(beanName)) {
+			bd = getMergedBeanDefinition(beanName, false);
+		}
+
+		// pool 에서 나온 prototype 객체는 다른 빈이 공유하지 않으므로 의존하는 빈은 그대로 둔다
+		if (bd == null || bd.isSingleton()) {
+			logger.debug("Retrieving depending beans for bean '" + beanName + "'");
+			String[] dependingBeans = getDependingBeanNames(beanName);
+			if (dependingBeans != null) {
+				for (int i = 0; i < dependingBeans.length; i++) {
+					destroySingleton(dependingBeans[i]);
+				}
 			}
 		}
 
@@ -581,14 +830,105 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 		}
 
-		try {
-			RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
-			if (bd.getDestroyMethodName() != null) {
-				logger.debug("Calling custom destroy method '" + bd.getDestroyMethodName() + "' on bean with name '"
-						+ beanName + "'");
-				invokeCustomDestroyMethod(beanName, bean, bd.getDestroyMethodName());
+		if (bd != null && bd.getDestroyMethodName() != null) {
+			logger.debug("Calling custom destroy method '" + bd.getDestroyMethodName() + "' on bean with name '"
+					+ beanName + "'");
+			invokeCustomDestroyMethod(beanName, bean, bd.getDestroyMethodName());
+		}
+	}
+
+	// 빈이 만든 inner bean 도 destroy
+	protected void destroyBeanInstances(String beanName) {
+		super.destroyBeanInstances(beanName);
+		List innerBeans = (List) this.disposableInnerBeans.remove(beanName);
+		if (innerBeans != null) {
+			Object[] beans = innerBeans.toArray();
+			for (int i = 0; i < beans.length; i++) {
+				destroyBean("(inner bean of type " + beans[i].getClass().getName() + ")", beans[i]);
+			}
+		}
+	}
+
+	// 의존 관계에서 이름을 지운다
+	protected void removeBeanState(String beanName) {
+		super.removeBeanState(beanName);
+		synchronized (this.dependentBeanMap) {
+			Set dependentBeans = (Set) this.dependentBeanMap.remove(beanName);
+			if (dependentBeans != null) {
+				Object[] names = dependentBeans.toArray();
+				for (int i = 0; i < names.length; i++) {
+					Set dependencies = (Set) this.dependenciesForBeanMap.get(names[i]);
+					if (dependencies != null) {
+						dependencies.remove(beanName);
+					}
+				}
+			}
+		}
+		removeDependenciesForBean(beanName);
+	}
+
+	// beanName 이 다른 빈을 참조한다는 기록만 지운다
+	// definition 을 덮어쓰면 이전 definition 의 ref, depends-on 이 더는 의존 관계가 아니다
+	protected void removeDependenciesForBean(String beanName) {
+		synchronized (this.dependentBeanMap) {
+			Set dependencies = (Set) this.dependenciesForBeanMap.remove(beanName);
+			if (dependencies != null) {
+				Object[] names = dependencies.toArray();
+				for (int i = 0; i < names.length; i++) {
+					Set dependentBeans = (Set) this.dependentBeanMap.get(names[i]);
+					if (dependentBeans != null) {
+						dependentBeans.remove(beanName);
+						if (dependentBeans.isEmpty()) {
+							this.dependentBeanMap.remove(names[i]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// dependentBeanName 이 beanName 을 참조한다 (depends-on, ref, autowire)
+	// destroy 할때 의존하는 빈을 먼저 destroy 하기 위해 사용
+	protected void registerDependentBean(String beanName, String dependentBeanName) {
+		String canonicalName = transformedBeanName(beanName);
+		Set dependentBeans = (Set) this.dependentBeanMap.get(canonicalName);
+		if (dependentBeans != null && dependentBeans.contains(dependentBeanName)) {
+			return;
+		}
+		synchronized (this.dependentBeanMap) {
+			dependentBeans = (Set) this.dependentBeanMap.get(canonicalName);
+			if (dependentBeans == null) {
+				dependentBeans = Collections.synchronizedSet(new LinkedHashSet());
+				this.dependentBeanMap.put(canonicalName, dependentBeans);
+			}
+			dependentBeans.add(dependentBeanName);
+			Set dependencies = (Set) this.dependenciesForBeanMap.get(dependentBeanName);
+			if (dependencies == null) {
+				dependencies = Collections.synchronizedSet(new LinkedHashSet());
+				this.dependenciesForBeanMap.put(dependentBeanName, dependencies);
 			}
-		} catch (NoSuchBeanDefinitionException ex) {
+			dependencies.add(canonicalName);
+		}
+	}
+
+	protected String[] getDependingBeanNames(String beanName) {
+		Set dependentBeans = (Set) this.dependentBeanMap.get(beanName);
+		if (dependentBeans == null) {
+			return new String[0];
+		}
+		synchronized (dependentBeans) {
+			return (String[]) dependentBeans.toArray(new String[dependentBeans.size()]);
+		}
+	}
+
+	// beanName 이 의존하는 bean name
+	protected String[] getDependenciesForBean(String beanName) {
+		Set dependencies = (Set) this.dependenciesForBeanMap.get(beanName);
+		if (dependencies == null) {
+			return new String[0];
+		}
+		synchronized (dependencies) {
+			return (String[]) dependencies.toArray(new String[dependencies.size()]);
 		}
 	}
 
@@ -634,8 +974,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 	}
 
-	protected abstract Map findMatchingBeans(Class requiredType) throws BeansException;
-
-	protected abstract String[] getDependingBeanNames(String beanName) throws BeansException;
+	//타입이 맞는 빈 이름, 빈은 만들지 않는다
+	protected abstract String[] findMatchingBeanNames(Class requiredType) throws BeansException;
 
 }
@@ -1,8 +1,15 @@
 package org.springframework.beans.factory.support;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 
 public abstract class AbstractBeanDefinition implements BeanDefinition{
 	
@@ -10,6 +17,10 @@ public abstract class AbstractBeanDefinition implements BeanDefinition{
 	private String resourceDescription;
 	private boolean singleton = true;
 	private boolean lazyInit = false;
+	//0 보다 크면 prototype 객체를 그 개수 만큼 pool 에 보관
+	private int poolSize = 0;
+	//prototype 객체를 쓰레드 별로 하나씩 재사용
+	private boolean threadScoped = false;
 	
 	protected AbstractBeanDefinition(MutablePropertyValues pvs) {
 		this.propertyValues = (pvs != null) ? pvs : new MutablePropertyValues();
@@ -47,10 +58,91 @@ public abstract class AbstractBeanDefinition implements BeanDefinition{
 		return lazyInit;
 	}
 	
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+	
+	public int getPoolSize() {
+		return poolSize;
+	}
+	
+	public boolean isPooled() {
+		return (this.poolSize > 0);
+	}
+	
+	public void setThreadScoped(boolean threadScoped) {
+		this.threadScoped = threadScoped;
+	}
+	
+	public boolean isThreadScoped() {
+		return threadScoped;
+	}
+	
+	//DefaultListableBeanFactory 가 등록할때 호출
+	//배열을 개수에 맞게 줄이고 definition 마다 반복되는 이름, 문자열 값, resource 설명을 intern
+	void compact() {
+		this.propertyValues.compact();
+		for (int i = 0; i < this.propertyValues.size(); i++) {
+			Object value = compactValue(this.propertyValues.getValue(i));
+			if (value != this.propertyValues.getValue(i)) {
+				this.propertyValues.setPropertyValueAt(new PropertyValue(this.propertyValues.getName(i), value), i);
+			}
+		}
+		if (this.resourceDescription != null) {
+			this.resourceDescription = this.resourceDescription.intern();
+		}
+	}
+	
+	//바뀐 값이 있으면 새 객체, 컬렉션과 inner bean 은 그 안에서 바꾼다
+	static Object compactValue(Object value) {
+		if (value instanceof String) {
+			return ((String) value).intern();
+		}
+		if (value instanceof RuntimeBeanReference) {
+			String beanName = ((RuntimeBeanReference) value).getBeanName();
+			String internedBeanName = beanName.intern();
+			return (internedBeanName != beanName ? new RuntimeBeanReference(internedBeanName) : value);
+		}
+		if (value instanceof AbstractBeanDefinition) {
+			((AbstractBeanDefinition) value).compact();
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList list = (ManagedList) value;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, compactValue(list.get(i)));
+			}
+			list.trimToSize();
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet set = (ManagedSet) value;
+			List elements = new ArrayList(set);
+			set.clear();
+			for (int i = 0; i < elements.size(); i++) {
+				set.add(compactValue(elements.get(i)));
+			}
+		}
+		else if (value instanceof ManagedMap) {
+			for (Iterator it = ((Map) value).entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				entry.setValue(compactValue(entry.getValue()));
+			}
+		}
+		return value;
+	}
+	
 	public void validate() throws BeanDefinitionValidationException {
 		if (this.lazyInit && !this.singleton) {
 			throw new BeanDefinitionValidationException("Lazy initialization is just applicable to singleton beans");
 		}
+		if (this.poolSize > 0 && this.singleton) {
+			throw new BeanDefinitionValidationException("Pooling is just applicable to prototype beans");
+		}
+		if (this.threadScoped && (this.singleton || this.poolSize > 0)) {
+			throw new BeanDefinitionValidationException("Thread scope is just applicable to non-pooled prototype beans");
+		}
+		if (this.poolSize < 0) {
+			throw new BeanDefinitionValidationException("Pool size must not be negative");
+		}
 	}
 
 }
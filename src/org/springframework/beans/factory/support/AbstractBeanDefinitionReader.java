@@ -1,10 +1,17 @@
 package org.springframework.beans.factory.support;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
 public abstract class AbstractBeanDefinitionReader {
 	private BeanDefinitionRegistry beanFactory;
 	
 	private ClassLoader beanClassLoader = Thread.currentThread().getContextClassLoader();
 	
+	//0 (기본) 이면 bean class 를 미리 load 하지 않는다
+	//읽는 문서마다 쓰레드를 새로 만드니 class 가 많은 큰 설정에서만 켠다
+	private int classPrefetchThreads = 0;
+	
 	protected AbstractBeanDefinitionReader(BeanDefinitionRegistry beanFactory) {
 		this.beanFactory = beanFactory;
 	}
@@ -20,5 +27,24 @@ public abstract class AbstractBeanDefinitionReader {
 	public ClassLoader getBeanClassLoader() {
 		return beanClassLoader;
 	}
+	
+	public void setClassPrefetchThreads(int classPrefetchThreads) {
+		this.classPrefetchThreads = classPrefetchThreads;
+	}
+	
+	public int getClassPrefetchThreads() {
+		return classPrefetchThreads;
+	}
+	
+	//등록하기 전에 찾은 bean class 이름을 다른 쓰레드에서 load 시작
+	//등록 중의 Class.forName 은 load 가 끝난 클레스를 받거나 load 중인 클레스를 기다린다
+	protected void prefetchBeanClasses(Collection classNames) {
+		if (this.beanClassLoader == null || this.classPrefetchThreads <= 0 || classNames.size() < 2) {
+			return;
+		}
+		Collection distinctClassNames = new LinkedHashSet(classNames);
+		new BeanClassPrefetcher(this.beanClassLoader,
+				(String[]) distinctClassNames.toArray(new String[distinctClassNames.size()])).start(this.classPrefetchThreads);
+	}
 
 }
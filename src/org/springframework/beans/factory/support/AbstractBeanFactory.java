@@ -1,44 +1,142 @@
 package org.springframework.beans.factory.support;
 
 import java.beans.PropertyEditor;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanHandle;
 import org.springframework.beans.factory.BeanIsNotAFactoryException;
 import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.FactoryBeanCircularReferenceException;
 import org.springframework.beans.factory.HierarchicalBeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanCreationListener;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 
 public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, HierarchicalBeanFactory{
 	public static final String FACTORY_BEAN_PREFIX = "&";
 	
+	//멈춘 destroy() 가 worker 를 잡고 있어도 병렬 destroySingletons 가 끝나도록 기본 제한 시간 ms
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = 30000;
+	
+	//다른 쓰레드의 싱글톤 생성을 기다릴때 순환 검사를 다시 하는 간격
+	private static final long SINGLETON_LOCK_CHECK_INTERVAL_MILLIS = 50;
+	
 	
 	protected final Log logger = LogFactory.getLog(getClass());
 	
 	private BeanFactory parentBeanFactory;
 	private Map customEditors = new HashMap();
 	private final Set ignoreDependencyTypes = new HashSet();
+	private volatile int ignoredDependencyTypesVersion = 0;
 	private final List beanPostProcessors = new ArrayList();
-	private final Map aliasMap = Collections.synchronizedMap(new HashMap());
-	private final Map singletonCache = Collections.synchronizedMap(new HashMap());
+	//getBean 마다 읽기 때문에 lock 없는 map
+	private final ConcurrentHashMap aliasMap = new ConcurrentHashMap();
+	//freezeAliases 후 alias -> bean name, bean name -> String[] alias
+	private volatile FrozenNameMap frozenAliasMap;
+	private volatile FrozenNameMap frozenAliasesByName;
+	//싱글톤 읽기는 lock 없이, 생성은 빈 이름 별 lock 으로
+	private final Map singletonCache = new ConcurrentHashMap();
+	
+	//생성중인 싱글톤의 초기화 전 객체, 순환 참조용
+	//생성 lock 을 가진 쓰레드만 보고, 다른 쓰레드는 lock 을 기다렸다가 singletonCache 에서 완성된 객체를 받는다
+	private final Map earlySingletonReferences = new ConcurrentHashMap();
+	
+	//bean name -> 생성 lock 객체, lock 의 owner 가 생성중인 Thread
+	private final ConcurrentHashMap singletonLocks = new ConcurrentHashMap();
+	
+	//Thread -> 기다리고 있는 bean name
+	private final Map singletonLockWaits = new ConcurrentHashMap();
+	
+	//bean name -> MergedDefinitionEntry (ChildBeanDefinition 만 캐쉬)
+	private final Map mergedBeanDefinitions = new ConcurrentHashMap();
+	
+	//병합할때 부모로 사용된 bean name
+	private final Set mergedParentNames = Collections.synchronizedSet(new HashSet());
+	
+	//FactoryBean 이름 -> 싱글톤 FactoryBean 이 만든 객체
+	private final Map factoryBeanObjectCache = new ConcurrentHashMap();
+	
+	//싱글톤 객체 타입 -> bean name
+	private final BeanTypeIndex singletonTypeIndex = new BeanTypeIndex();
+	
+	//생성이 끝난 순서대로 싱글톤 이름, 의존하는 빈이 항상 뒤에 온다
+	private final Set singletonCompletionOrder = Collections.synchronizedSet(new LinkedHashSet());
+	
+	//bean name -> BeanInstancePool, pool-size 가 지정된 prototype
+	private final ConcurrentHashMap beanPools = new ConcurrentHashMap();
+	
+	//0 보다 크면 이 시간 보다 오래 pool 에 있던 객체는 destroy
+	private long pooledBeanMaxIdleTime = 0;
+	
+	private Timer poolEvictionTimer;
+	
+	//현재 쓰레드의 threadScopedBeanMaps key
+	private final ThreadLocal threadScopedBeans = new ThreadLocal();
+	
+	//Thread 의 WeakReference -> 그 쓰레드의 bean name -> thread-scope 객체 Map
+	//Thread 를 잡고 있지 않아서 정리 없이 끝난 쓰레드가 GC 되면 key 가 terminatedThreads 에 들어온다
+	private final Map threadScopedBeanMaps = new ConcurrentHashMap();
+	
+	private final ReferenceQueue terminatedThreads = new ReferenceQueue();
+	
+	//destroySingletons 를 의존 순서에 맞춰 여러 쓰레드로 할지 여부
+	private boolean parallelDestroy = false;
+	
+	private int destroyThreads = 4;
+	
+	//빈 하나의 destroy 제한 시간 ms, 0 이면 제한 없음
+	private long destroyTimeout = 0;
+	
+	//병렬 destroySingletons 전체 제한 시간 ms, 0 이면 제한 없음
+	private long shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+	
+	//bean name(& 포함) -> DefaultBeanHandle
+	private final ConcurrentHashMap beanHandles = new ConcurrentHashMap();
+	
+	//removeSingleton 마다 증가, handle 에 destroy 된 객체가 다시 들어가지 않게 확인
+	private volatile int beanHandleGeneration = 0;
+	
+	//추가할때 배열을 새로 만든다, 비어 있으면 측정 안함
+	private volatile BeanCreationListener[] beanCreationListeners = new BeanCreationListener[0];
 	
 	public AbstractBeanFactory() {
 		//BeanFactory 클레스는 의존주입 제외
@@ -52,39 +150,51 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	}
 	
 	public Object getBean(String name) throws BeansException {
-		String beanName = transformedBeanName(name);
+		return getBean(name, transformedBeanName(name), true);
+	}
+	
+	//beanName 은 name 을 transformedBeanName 한 값
+	private Object getBean(String name, String beanName, boolean includingParent) throws BeansException {
 		Object sharedInstance = this.singletonCache.get(beanName);
 		
-		
+		//캐쉬된 싱글톤은 객체 생성, lock 없이 리턴
 		if (sharedInstance != null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Returning cached instance of singleton bean '" + beanName + "'");
 			}
+			BeanCreationListener[] listeners = this.beanCreationListeners;
+			for (int i = 0; i < listeners.length; i++) {
+				listeners[i].singletonCacheHit(beanName);
+			}
 			//FactoryBean 이면 거기에서 가져오기 아니면 그냥 리턴 
-			return getObjectForSharedInstance(name, sharedInstance);
+			return getObjectForSharedInstance(name, beanName, sharedInstance);
 		}
 		else {//싱글톤 맵에 없으면
-			RootBeanDefinition mergedBeanDefinition = null;
-			try {
-				mergedBeanDefinition = getMergedBeanDefinition(beanName, false);
-			}
-			catch (NoSuchBeanDefinitionException ex) {
-				if (this.parentBeanFactory != null) {
+			//GC 된 쓰레드가 없으면 queue 만 보고 끝난다
+			destroyThreadScopedBeansOfTerminatedThreads();
+			//없으면 예외 없이 부모에 맡기고, 부모도 없을때만 예외 생성
+			RootBeanDefinition mergedBeanDefinition = findMergedBeanDefinition(beanName, false);
+			if (mergedBeanDefinition == null) {
+				if (includingParent && this.parentBeanFactory != null) {
 					return this.parentBeanFactory.getBean(name);
 				}
-				throw ex;
+				throw new NoSuchBeanDefinitionException(beanName, toString());
 			}
 			
 			if (mergedBeanDefinition.isSingleton()) {
-				synchronized (this.singletonCache) {
-					sharedInstance = this.singletonCache.get(beanName);
-					if (sharedInstance == null) {
-						logger.info("Creating shared instance of singleton bean '" + beanName + "'");
-						sharedInstance = createBean(beanName, mergedBeanDefinition);
-						addSingleton(beanName, sharedInstance);
-					}
+				BeanCreationListener[] listeners = this.beanCreationListeners;
+				for (int i = 0; i < listeners.length; i++) {
+					listeners[i].singletonCacheMiss(beanName);
 				}
-				return getObjectForSharedInstance(name, sharedInstance);
+				sharedInstance = getOrCreateSingleton(beanName, mergedBeanDefinition);
+				return getObjectForSharedInstance(name, beanName, sharedInstance);
+			}
+			else if (mergedBeanDefinition.isThreadScoped()) {
+				return getThreadScopedBean(beanName, mergedBeanDefinition);
+			}
+			else if (mergedBeanDefinition.isPooled()) {
+				Object pooledInstance = getBeanPool(beanName, mergedBeanDefinition).borrow();
+				return (pooledInstance != null ? pooledInstance : createBean(beanName, mergedBeanDefinition));
 			}
 			else {
 				return createBean(name, mergedBeanDefinition);
@@ -92,7 +202,381 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}
 	}
 	
+	//이름 해석을 한번만 하는 handle, 같은 이름이면 같은 handle
+	//이 factory 에 없는 빈은 부모의 handle 을 리턴한다
+	public BeanHandle getBeanHandle(String name) throws BeansException {
+		String beanName = transformedBeanName(name);
+		String handleKey = (isFactoryDereference(name) ? FACTORY_BEAN_PREFIX + beanName : beanName);
+		BeanHandle handle = (BeanHandle) this.beanHandles.get(handleKey);
+		if (handle != null) {
+			return handle;
+		}
+		if (!containsSingleton(beanName) && findMergedBeanDefinition(beanName, false) == null) {
+			if (this.parentBeanFactory instanceof ConfigurableBeanFactory) {
+				return ((ConfigurableBeanFactory) this.parentBeanFactory).getBeanHandle(name);
+			}
+			throw new NoSuchBeanDefinitionException(beanName, toString());
+		}
+		handle = new DefaultBeanHandle(this, handleKey, beanName);
+		BeanHandle existingHandle = (BeanHandle) this.beanHandles.putIfAbsent(handleKey, handle);
+		return (existingHandle != null ? existingHandle : handle);
+	}
 	
+	//handle 에 캐쉬된 객체가 없을때, prototype 은 항상 여기서 생성
+	Object getBeanForHandle(DefaultBeanHandle handle) throws BeansException {
+		int generation = this.beanHandleGeneration;
+		Object bean = getBean(handle.getName(), handle.getBeanName(), false);
+		//definition 이 제거되어 map 에서 빠진 handle 은 destroy 때 지워지지 않으니 캐쉬하지 않는다
+		if (this.beanHandles.get(handle.getName()) == handle &&
+				containsSingleton(handle.getBeanName()) && isSingleton(handle.getName())) {
+			handle.setInstance(bean);
+			//그 사이에 destroy 되었으면 다시 지운다
+			if (this.beanHandleGeneration != generation) {
+				handle.setInstance(null);
+			}
+		}
+		return bean;
+	}
+	
+	private void clearBeanHandles(String beanName) {
+		this.beanHandleGeneration++;
+		DefaultBeanHandle handle = (DefaultBeanHandle) this.beanHandles.get(beanName);
+		if (handle != null) {
+			handle.setInstance(null);
+		}
+		handle = (DefaultBeanHandle) this.beanHandles.get(FACTORY_BEAN_PREFIX + beanName);
+		if (handle != null) {
+			handle.setInstance(null);
+		}
+	}
+	
+	//definition 이 바뀌거나 제거될때 그 definition 으로 만든 객체 destroy, definition 이 아직 있을때 불린다
+	//싱글톤을 destroy 하면 destroyBean 에서 의존하는 빈도 destroy 된다
+	//빈의 scope 와 상관 없이 의존하는 싱글톤은 destroy 해서 다시 생성되게 한다
+	//prototype 참조를 가진 싱글톤도 의존 관계로 기록되어 있다
+	protected void destroyBeanInstances(String beanName) {
+		String[] dependents = getDependingBeanNames(beanName);
+		for (int i = 0; i < dependents.length; i++) {
+			destroySingleton(dependents[i]);
+		}
+		if (containsSingleton(beanName)) {
+			destroySingleton(beanName);
+		}
+		BeanInstancePool pool = (BeanInstancePool) this.beanPools.remove(beanName);
+		if (pool != null) {
+			List idle = pool.close();
+			for (int i = 0; i < idle.size(); i++) {
+				destroyPooledBean(beanName, idle.get(i));
+			}
+		}
+		for (Iterator it = this.threadScopedBeanMaps.values().iterator(); it.hasNext();) {
+			Object bean = ((Map) it.next()).remove(beanName);
+			if (bean != null) {
+				destroyBean(beanName, bean);
+			}
+		}
+		this.mergedBeanDefinitions.remove(beanName);
+	}
+	
+	//bean definition 을 제거할때 그 빈의 객체와 캐쉬를 정리
+	protected void removeBeanState(String beanName) {
+		destroyBeanInstances(beanName);
+		for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if (beanName.equals(entry.getValue())) {
+				it.remove();
+			}
+		}
+		this.beanHandles.remove(beanName);
+		this.beanHandles.remove(FACTORY_BEAN_PREFIX + beanName);
+		this.singletonLocks.remove(beanName);
+	}
+	
+	//쓰레드 마다 처음 getBean 할때 한번 생성
+	//ThreadLocal 은 virtual thread 에서도 그 쓰레드 자신의 값이라 carrier thread 에 남지 않는다
+	private Object getThreadScopedBean(String beanName, RootBeanDefinition mergedBeanDefinition) throws BeansException {
+		Reference threadKey = (Reference) this.threadScopedBeans.get();
+		Map beans = (threadKey != null ? (Map) this.threadScopedBeanMaps.get(threadKey) : null);
+		//처음 이거나 destroySingletons 로 정리되었으면 새로 등록
+		if (beans == null) {
+			threadKey = new WeakReference(Thread.currentThread(), this.terminatedThreads);
+			beans = Collections.synchronizedMap(new LinkedHashMap());
+			this.threadScopedBeans.set(threadKey);
+			this.threadScopedBeanMaps.put(threadKey, beans);
+		}
+		Object bean = beans.get(beanName);
+		if (bean == null) {
+			bean = createBean(beanName, mergedBeanDefinition);
+			beans.put(beanName, bean);
+		}
+		return bean;
+	}
+	
+	//task 가 끝나면 그 쓰레드에서 실행한 thread-scope 객체를 바로 destroy 하는 Runnable
+	//쓰레드가 끝날때 destroy 되게 하려면 new Thread, Executor 에 넘기는 작업을 이걸로 감싼다
+	public Runnable decorateThreadScopedTask(final Runnable task) {
+		return new Runnable() {
+			public void run() {
+				try {
+					task.run();
+				}
+				finally {
+					destroyThreadScopedBeans();
+				}
+			}
+		};
+	}
+	
+	//현재 쓰레드의 thread-scope 객체 destroy
+	//쓰레드 pool 의 쓰레드는 끝나지 않으니 작업이 끝날때 마다 꼭 호출해야 한다
+	//안하면 다음 작업이 같은 객체를 받고, 객체는 factory 가 닫힐때 까지 남는다
+	public void destroyThreadScopedBeans() {
+		Reference threadKey = (Reference) this.threadScopedBeans.get();
+		this.threadScopedBeans.remove();
+		if (threadKey != null) {
+			Map beans = (Map) this.threadScopedBeanMaps.remove(threadKey);
+			if (beans != null) {
+				destroyThreadScopedBeans(beans);
+			}
+		}
+	}
+	
+	//정리하지 않고 끝난 쓰레드의 객체를 남겨 두지 않기 위한 보조 수단, 끝날때 destroy 하는 것이 아니다
+	//Thread 객체가 GC 된 뒤 getBean, releaseBean, destroySingletons 중 하나가 불릴때 그 쓰레드에서 destroy 된다
+	//GC 가 언제 될지 모르니 정해진 시점에 destroy 하려면 decorateThreadScopedTask 나 destroyThreadScopedBeans 를 쓴다
+	protected void destroyThreadScopedBeansOfTerminatedThreads() {
+		Reference threadKey;
+		while ((threadKey = this.terminatedThreads.poll()) != null) {
+			Map beans = (Map) this.threadScopedBeanMaps.remove(threadKey);
+			if (beans != null) {
+				destroyThreadScopedBeans(beans);
+			}
+		}
+	}
+	
+	//만든 순서의 역순으로 destroy, remove 가 성공한 쪽에서만 destroy
+	private void destroyThreadScopedBeans(Map beans) {
+		String[] beanNames = null;
+		synchronized (beans) {
+			beanNames = (String[]) beans.keySet().toArray(new String[beans.size()]);
+		}
+		for (int i = beanNames.length - 1; i >= 0; i--) {
+			Object bean = beans.remove(beanNames[i]);
+			if (bean != null) {
+				try {
+					destroyBean(beanNames[i], bean);
+				}
+				catch (RuntimeException ex) {
+					logger.error("Destroy of thread-scoped bean '" + beanNames[i] + "' failed", ex);
+				}
+			}
+		}
+	}
+	
+	//pool 에서 빌린 객체 돌려주기, pool 이 가득 찼으면 destroy
+	//pool 이 없는 빈이면 아무것도 안한다
+	public void releaseBean(String name, Object bean) {
+		destroyThreadScopedBeansOfTerminatedThreads();
+		String beanName = transformedBeanName(name);
+		BeanInstancePool pool = (BeanInstancePool) this.beanPools.get(beanName);
+		if (pool == null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bean '" + beanName + "' is not pooled: ignoring release");
+			}
+			return;
+		}
+		if (!pool.release(bean)) {
+			destroyBean(beanName, bean);
+		}
+	}
+	
+	private BeanInstancePool getBeanPool(String beanName, RootBeanDefinition mergedBeanDefinition) {
+		BeanInstancePool pool = (BeanInstancePool) this.beanPools.get(beanName);
+		if (pool == null) {
+			BeanInstancePool newPool = new BeanInstancePool(mergedBeanDefinition.getPoolSize());
+			pool = (BeanInstancePool) this.beanPools.putIfAbsent(beanName, newPool);
+			if (pool == null) {
+				pool = newPool;
+				startPoolEvictionTimerIfNecessary();
+			}
+		}
+		return pool;
+	}
+	
+	public void setPooledBeanMaxIdleTime(long pooledBeanMaxIdleTime) {
+		this.pooledBeanMaxIdleTime = pooledBeanMaxIdleTime;
+	}
+	
+	public long getPooledBeanMaxIdleTime() {
+		return pooledBeanMaxIdleTime;
+	}
+	
+	//max idle time 이 지정되어 있으면 데몬 쓰레드 하나로 주기적으로 정리
+	private synchronized void startPoolEvictionTimerIfNecessary() {
+		if (this.pooledBeanMaxIdleTime <= 0 || this.poolEvictionTimer != null) {
+			return;
+		}
+		this.poolEvictionTimer = new Timer(true);
+		long period = Math.max(this.pooledBeanMaxIdleTime / 2, 1);
+		this.poolEvictionTimer.schedule(new TimerTask() {
+			public void run() {
+				evictIdlePooledBeans();
+			}
+		}, period, period);
+	}
+	
+	protected void evictIdlePooledBeans() {
+		for (Iterator it = this.beanPools.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			List evicted = ((BeanInstancePool) entry.getValue()).evictIdle(this.pooledBeanMaxIdleTime);
+			for (int i = 0; i < evicted.size(); i++) {
+				destroyPooledBean((String) entry.getKey(), evicted.get(i));
+			}
+		}
+	}
+	
+	private void destroyPooledBean(String beanName, Object bean) {
+		try {
+			destroyBean(beanName, bean);
+		}
+		catch (RuntimeException ex) {
+			logger.error("Destroy of pooled bean '" + beanName + "' failed", ex);
+		}
+	}
+	
+	//pool 을 닫고 보관중인 객체 destroy, 빌려간 객체는 돌려줄때 destroy 된다
+	protected void destroyBeanPools() {
+		synchronized (this) {
+			if (this.poolEvictionTimer != null) {
+				this.poolEvictionTimer.cancel();
+				this.poolEvictionTimer = null;
+			}
+		}
+		for (Iterator it = this.beanPools.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			it.remove();
+			List idle = ((BeanInstancePool) entry.getValue()).close();
+			for (int i = 0; i < idle.size(); i++) {
+				destroyPooledBean((String) entry.getKey(), idle.get(i));
+			}
+		}
+	}
+	
+	
+	
+	//다른 빈 생성은 막지 않고 같은 이름의 빈 생성만 lock
+	private Object getOrCreateSingleton(String beanName, RootBeanDefinition mergedBeanDefinition) throws BeansException {
+		ReentrantLock lock = getSingletonLock(beanName);
+		acquireSingletonLock(beanName, lock);
+		try {
+			Object sharedInstance = this.singletonCache.get(beanName);
+			if (sharedInstance == null) {
+				//같은 쓰레드 안의 순환 참조
+				sharedInstance = this.earlySingletonReferences.get(beanName);
+				if (sharedInstance != null) {
+					return sharedInstance;
+				}
+				logger.info("Creating shared instance of singleton bean '" + beanName + "'");
+				try {
+					sharedInstance = createBean(beanName, mergedBeanDefinition);
+					if (sharedInstance == null) {
+						throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
+								"Creation of singleton returned null - possible cause: a BeanPostProcessor returned null");
+					}
+					//초기화와 BeanPostProcessor 가 끝난 뒤에 lock 없이 읽는 singletonCache 에 넣는다
+					addSingleton(beanName, sharedInstance);
+					this.singletonCompletionOrder.add(beanName);
+				}
+				finally {
+					this.earlySingletonReferences.remove(beanName);
+				}
+			}
+			return sharedInstance;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	protected ReentrantLock getSingletonLock(String beanName) {
+		ReentrantLock lock = (ReentrantLock) this.singletonLocks.get(beanName);
+		if (lock == null) {
+			ReentrantLock newLock = new SingletonLock();
+			lock = (ReentrantLock) this.singletonLocks.putIfAbsent(beanName, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+	
+	//다른 쓰레드가 가진 lock 은 기다리는 bean name 을 먼저 기록하고 일정 시간 마다 순환 검사를 다시 하면서 기다린다
+	//lock 의 owner 는 lock 을 얻는 순간 정해지기 때문에 검사를 반복하면 서로 기다리는 상황은 결국 보인다
+	//같은 쓰레드 안에서의 순환 참조는 lock 재진입으로 기존처럼 처리된다
+	private void acquireSingletonLock(String beanName, ReentrantLock lock) throws BeanCreationException {
+		if (lock.tryLock()) {
+			return;
+		}
+		Thread currentThread = Thread.currentThread();
+		long waitStart = System.nanoTime();
+		this.singletonLockWaits.put(currentThread, beanName);
+		try {
+			do {
+				checkForConcurrentCircularReference(beanName);
+			}
+			while (!lock.tryLock(SINGLETON_LOCK_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+		}
+		catch (InterruptedException ex) {
+			currentThread.interrupt();
+			throw new BeanCreationException("Error creating bean with name '" + beanName +
+					"': interrupted while waiting for singleton creation in another thread");
+		}
+		finally {
+			this.singletonLockWaits.remove(currentThread);
+		}
+		BeanCreationListener[] listeners = this.beanCreationListeners;
+		if (listeners.length > 0) {
+			long waited = System.nanoTime() - waitStart;
+			for (int i = 0; i < listeners.length; i++) {
+				listeners[i].singletonLockWaited(beanName, waited);
+			}
+		}
+	}
+	
+	private Thread getSingletonLockOwner(String beanName) {
+		SingletonLock lock = (SingletonLock) this.singletonLocks.get(beanName);
+		return (lock != null ? lock.getOwnerThread() : null);
+	}
+	
+	//lock owner -> 그 쓰레드가 기다리는 bean name -> 그 lock owner ... 를 따라가서 자기 자신이 나오면 순환
+	private void checkForConcurrentCircularReference(String beanName) throws BeanCreationException {
+		Thread currentThread = Thread.currentThread();
+		String awaitedBeanName = beanName;
+		int maxHops = this.singletonLockWaits.size() + 1;
+		for (int i = 0; i < maxHops; i++) {
+			Thread owner = getSingletonLockOwner(awaitedBeanName);
+			if (owner == null) {
+				return;
+			}
+			if (owner == currentThread) {
+				throw new BeanCurrentlyInCreationException("Error creating bean with name '" + beanName +
+						"': circular reference between singletons currently in creation in different threads " +
+						"(waiting for '" + awaitedBeanName + "')");
+			}
+			awaitedBeanName = (String) this.singletonLockWaits.get(owner);
+			if (awaitedBeanName == null) {
+				return;
+			}
+		}
+	}
+	
+	//ReentrantLock.getOwner 는 protected 라서 순환 검사용으로 꺼낸다
+	private static class SingletonLock extends ReentrantLock {
+		
+		private Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
 	
 	public Object getBean(String name, Class requiredType) throws BeansException {
 		Object bean = getBean(name);
@@ -123,38 +607,41 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	
 	public boolean isSingleton(String name) throws NoSuchBeanDefinitionException {
 		String beanName = transformedBeanName(name);
-		try {
-			Class beanClass = null;
-			boolean singleton = true;
-			Object beanInstance = this.singletonCache.get(beanName);
-			if (beanInstance != null) {
-				beanClass = beanInstance.getClass();
-				singleton = true;
-			}
-			else {
-				RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
-				beanClass = bd.getBeanClass();
-				singleton = bd.isSingleton();
-			}
-			if (FactoryBean.class.isAssignableFrom(beanClass) && !isFactoryDereference(name)) {
-				FactoryBean factoryBean = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
-				return factoryBean.isSingleton();
-			}
-			else {
-				return singleton;
-			}
+		Class beanClass = null;
+		boolean singleton = true;
+		Object beanInstance = this.singletonCache.get(beanName);
+		if (beanInstance != null) {
+			beanClass = beanInstance.getClass();
+			singleton = true;
 		}
-		catch (NoSuchBeanDefinitionException ex) {
-			if (this.parentBeanFactory != null) {
-				return this.parentBeanFactory.isSingleton(beanName);
+		else {
+			RootBeanDefinition bd = findMergedBeanDefinition(beanName, false);
+			if (bd == null) {
+				if (this.parentBeanFactory != null) {
+					return this.parentBeanFactory.isSingleton(beanName);
+				}
+				throw new NoSuchBeanDefinitionException(beanName, toString());
 			}
-			throw ex;
+			beanClass = bd.getBeanClass();
+			singleton = bd.isSingleton();
+		}
+		if (FactoryBean.class.isAssignableFrom(beanClass) && !isFactoryDereference(name)) {
+			FactoryBean factoryBean = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
+			return factoryBean.isSingleton();
+		}
+		else {
+			return singleton;
 		}
 	}
 	
 	public String[] getAliases(String name) throws NoSuchBeanDefinitionException {
 		String beanName = transformedBeanName(name);
 		if (this.singletonCache.containsKey(beanName) || containsBeanDefinition(beanName)) {
+			FrozenNameMap aliasesByName = this.frozenAliasesByName;
+			if (aliasesByName != null) {
+				String[] aliases = (String[]) aliasesByName.get(beanName);
+				return (aliases != null ? aliases.clone() : new String[0]);
+			}
 			List aliases = new ArrayList();
 			for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
 				Map.Entry entry = (Map.Entry) it.next();
@@ -162,6 +649,10 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 					aliases.add(entry.getKey());
 				}
 			}
+			//훑는 중에 freeze 되어 aliasMap 이 비워졌으면 frozen map 에서 다시
+			if (this.frozenAliasesByName != null) {
+				return getAliases(name);
+			}
 			return (String[]) aliases.toArray(new String[aliases.size()]);
 		}
 		else {
@@ -204,14 +695,22 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}
 		
 		//alias 되어 있는지 확인
-		String canonicalName = (String) this.aliasMap.get(name);
+		FrozenNameMap frozenAliases = this.frozenAliasMap;
+		String canonicalName = (String) (frozenAliases != null ? frozenAliases.get(name) : this.aliasMap.get(name));
+		//freeze 중에 aliasMap 이 비워졌으면 frozen map 에서 다시 찾는다
+		if (canonicalName == null && frozenAliases == null && (frozenAliases = this.frozenAliasMap) != null) {
+			canonicalName = (String) frozenAliases.get(name);
+		}
 		return canonicalName != null ? canonicalName : name;
 	}
 	
 	
 	protected Object getObjectForSharedInstance(String name, Object beanInstance) {
-		String beanName = transformedBeanName(name);
-		
+		return getObjectForSharedInstance(name, transformedBeanName(name), beanInstance);
+	}
+	
+	//beanName 은 name 을 transformedBeanName 한 값
+	private Object getObjectForSharedInstance(String name, String beanName, Object beanInstance) {
 		//isFactoryDereference 이름 검사 & 포함 되어 있으면 TRUE
 		//FactoryBean 이 아니면 객체를 생성할수 없다
 		if (isFactoryDereference(name) && !(beanInstance instanceof FactoryBean)) {
@@ -224,25 +723,43 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 			//이름에 & 없으면
 			if (!isFactoryDereference(name)) {
 				FactoryBean factory = (FactoryBean) beanInstance;
-				logger.debug("Bean with name '" + beanName + "' is a factory bean");
-				try {
-					//객체 가져오기
-					beanInstance = factory.getObject();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Bean with name '" + beanName + "' is a factory bean");
 				}
-				catch (BeansException ex) {
-					throw ex;
+				//캐쉬된 객체가 있으면 바로 리턴, destroy 될때 같이 제거된다
+				//inner bean 은 이름이 달라서 여기 걸리지 않는다
+				Object cachedObject = this.factoryBeanObjectCache.get(beanName);
+				if (cachedObject != null && this.singletonCache.get(beanName) == factory) {
+					return cachedObject;
 				}
-				catch (Exception ex) {
-					throw new BeanCreationException("FactoryBean threw exception on object creation", ex);
+				//싱글톤 FactoryBean 이면 한번 만든 객체를 캐쉬에서 가져온다
+				//inner bean 처럼 싱글톤 캐쉬에 없는 FactoryBean 은 매번 getObject
+				if (factory.isSingleton() && this.singletonCache.get(beanName) == factory) {
+					Object object = this.factoryBeanObjectCache.get(beanName);
+					if (object == null) {
+						ReentrantLock lock = getSingletonLock(beanName);
+						acquireSingletonLock(beanName, lock);
+						try {
+							object = this.factoryBeanObjectCache.get(beanName);
+							if (object == null) {
+								object = getObjectFromFactoryBean(beanName, factory);
+								//그 사이에 destroy 되었으면 캐쉬하지 않는다
+								if (this.singletonCache.get(beanName) == factory) {
+									this.factoryBeanObjectCache.put(beanName, object);
+								}
+							}
+						}
+						finally {
+							lock.unlock();
+						}
+					}
+					beanInstance = object;
 				}
-				
-				if (beanInstance == null) {
-					throw new FactoryBeanCircularReferenceException(
-					    "Factory bean '" + beanName + "' returned null object - " +
-					    "possible cause: not fully initialized due to circular bean reference");
+				else {
+					beanInstance = getObjectFromFactoryBean(beanName, factory);
 				}
 			}
-			else {
+			else if (logger.isDebugEnabled()) {
 				logger.debug("Calling code asked for FactoryBean instance for name '" + beanName + "'");
 			}
 		}
@@ -250,22 +767,134 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		return beanInstance;
 	}
 	
+	private Object getObjectFromFactoryBean(String beanName, FactoryBean factory) throws BeansException {
+		Object object;
+		try {
+			//객체 가져오기
+			object = factory.getObject();
+		}
+		catch (BeansException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new BeanCreationException("FactoryBean threw exception on object creation", ex);
+		}
+		
+		if (object == null) {
+			throw new FactoryBeanCircularReferenceException(
+			    "Factory bean '" + beanName + "' returned null object - " +
+			    "possible cause: not fully initialized due to circular bean reference");
+		}
+		return object;
+	}
+	
 	protected boolean isFactoryDereference(String name) {
 		return name.startsWith(FACTORY_BEAN_PREFIX);
 	}
 	
 	public RootBeanDefinition getMergedBeanDefinition(String beanName, boolean includingAncestors) throws BeansException {
-			try {
-				return getMergedBeanDefinition(beanName, getBeanDefinition(beanName));
+		RootBeanDefinition mergedBeanDefinition = findMergedBeanDefinition(beanName, includingAncestors);
+		if (mergedBeanDefinition == null) {
+			throw new NoSuchBeanDefinitionException(beanName, toString());
+		}
+		return mergedBeanDefinition;
+	}
+	
+	//getMergedBeanDefinition 과 같지만 없으면 예외 대신 null
+	protected RootBeanDefinition findMergedBeanDefinition(String beanName, boolean includingAncestors) throws BeansException {
+		MergedDefinitionEntry entry = (MergedDefinitionEntry) this.mergedBeanDefinitions.get(beanName);
+		if (entry != null && entry.isUpToDate()) {
+			return entry.mergedBeanDefinition;
+		}
+		BeanDefinition bd = findBeanDefinition(beanName);
+		if (bd == null) {
+			if (includingAncestors && getParentBeanFactory() instanceof AbstractBeanFactory) {
+				return ((AbstractBeanFactory) getParentBeanFactory()).findMergedBeanDefinition(beanName, true);
 			}
-			catch (NoSuchBeanDefinitionException ex) {
-				if (includingAncestors && getParentBeanFactory() instanceof AbstractAutowireCapableBeanFactory) {
-					return ((AbstractAutowireCapableBeanFactory) getParentBeanFactory()).getMergedBeanDefinition(beanName, true);
-				}
-				else {
-					throw ex;
+			return null;
+		}
+		//병합 전에 체인 상태를 기록해 두면 병합 중에 바뀐 것도 다음 조회때 걸러진다
+		entry = (bd instanceof ChildBeanDefinition ? createMergedDefinitionEntry(beanName, bd) : null);
+		RootBeanDefinition mergedBeanDefinition = getMergedBeanDefinition(beanName, bd);
+		//부모 factory 의 definition 으로 병합한 결과는 부모 factory 가 바뀌어도 알수 없어서 캐쉬하지 않는다
+		if (entry != null) {
+			entry.mergedBeanDefinition = mergedBeanDefinition;
+			this.mergedBeanDefinitions.put(beanName, entry);
+		}
+		return mergedBeanDefinition;
+	}
+	
+	//자식부터 root 까지 definition 과 값 변경 횟수를 기록, 부모가 이 factory 에 없으면 null
+	private MergedDefinitionEntry createMergedDefinitionEntry(String beanName, BeanDefinition bd) {
+		List names = new ArrayList();
+		List definitions = new ArrayList();
+		String name = beanName;
+		while (true) {
+			names.add(name);
+			definitions.add(bd);
+			if (!(bd instanceof ChildBeanDefinition)) {
+				break;
+			}
+			name = ((ChildBeanDefinition) bd).getParentName();
+			bd = findBeanDefinition(name);
+			if (bd == null || names.contains(name)) {
+				return null;
+			}
+		}
+		return new MergedDefinitionEntry((String[]) names.toArray(new String[names.size()]),
+				(BeanDefinition[]) definitions.toArray(new BeanDefinition[definitions.size()]));
+	}
+	
+	//BeanFactoryPostProcessor 가 체인 중 하나의 값을 직접 고치거나 부모가 다시 등록되면 다시 병합한다
+	private class MergedDefinitionEntry {
+		
+		private final String[] beanNames;
+		
+		private final BeanDefinition[] definitions;
+		
+		private final int[] propertyValuesModificationCounts;
+		
+		private final int[] constructorArgumentsModificationCounts;
+		
+		private volatile RootBeanDefinition mergedBeanDefinition;
+		
+		private MergedDefinitionEntry(String[] beanNames, BeanDefinition[] definitions) {
+			this.beanNames = beanNames;
+			this.definitions = definitions;
+			this.propertyValuesModificationCounts = new int[definitions.length];
+			this.constructorArgumentsModificationCounts = new int[definitions.length];
+			for (int i = 0; i < definitions.length; i++) {
+				this.propertyValuesModificationCounts[i] = getPropertyValuesModificationCount(definitions[i]);
+				this.constructorArgumentsModificationCounts[i] = getConstructorArgumentsModificationCount(definitions[i]);
+			}
+		}
+		
+		private boolean isUpToDate() {
+			for (int i = 0; i < this.definitions.length; i++) {
+				BeanDefinition bd = this.definitions[i];
+				if (findBeanDefinition(this.beanNames[i]) != bd ||
+						getPropertyValuesModificationCount(bd) != this.propertyValuesModificationCounts[i] ||
+						getConstructorArgumentsModificationCount(bd) != this.constructorArgumentsModificationCounts[i]) {
+					return false;
 				}
 			}
+			return true;
+		}
+	}
+	
+	private static int getPropertyValuesModificationCount(BeanDefinition bd) {
+		MutablePropertyValues pvs = bd.getPropertyValues();
+		return (pvs != null ? pvs.getModificationCount() : 0);
+	}
+	
+	private static int getConstructorArgumentsModificationCount(BeanDefinition bd) {
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		return (cargs != null ? cargs.getModificationCount() : 0);
+	}
+	
+	//없으면 null, 하위 클레스에서 map 을 바로 조회하도록 override
+	protected BeanDefinition findBeanDefinition(String beanName) throws BeansException {
+		return (containsBeanDefinition(beanName) ? getBeanDefinition(beanName) : null);
 	}
 	
 	protected RootBeanDefinition getMergedBeanDefinition(String beanName, BeanDefinition bd) {
@@ -275,15 +904,19 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}//자식이면
 		else if (bd instanceof ChildBeanDefinition) {
 			ChildBeanDefinition cbd = (ChildBeanDefinition) bd;
+			this.mergedParentNames.add(cbd.getParentName());
 			// 부모에 자식 추가
 			RootBeanDefinition rbd = new RootBeanDefinition(getMergedBeanDefinition(cbd.getParentName(), true));
 			
 			//자식 -> 부모 프로퍼티 추가
-			for (int i = 0; i < cbd.getPropertyValues().getPropertyValues().length; i++) {
-				rbd.getPropertyValues().addPropertyValue(cbd.getPropertyValues().getPropertyValues()[i]);
+			PropertyValue[] pvs = cbd.getPropertyValues().getPropertyValues();
+			for (int i = 0; i < pvs.length; i++) {
+				rbd.getPropertyValues().addPropertyValue(pvs[i]);
 			}
 			rbd.setSingleton(cbd.isSingleton());
 			rbd.setLazyInit(cbd.isLazyInit());
+			rbd.setPoolSize(cbd.getPoolSize());
+			rbd.setThreadScoped(cbd.isThreadScoped());
 			rbd.setResourceDescription(cbd.getResourceDescription());
 			return rbd;
 		}
@@ -293,17 +926,35 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}
 	}
 	
+	//definition 이 등록/변경되면 병합 캐쉬 제거
+	//부모로 사용된 definition 이면 자식들 병합 결과도 모두 무효 -> true 리턴
+	protected boolean clearMergedBeanDefinition(String beanName) {
+		this.mergedBeanDefinitions.remove(beanName);
+		if (this.mergedParentNames.remove(beanName)) {
+			this.mergedBeanDefinitions.clear();
+			this.mergedParentNames.clear();
+			return true;
+		}
+		return false;
+	}
+	
 	public Map getCustomEditors() {
 		return customEditors;
 	}
 
 	public void ignoreDependencyType(Class type) {
 		this.ignoreDependencyTypes.add(type);
+		this.ignoredDependencyTypesVersion++;
 	}
 	
 	public Set getIgnoredDependencyTypes() {
 		return ignoreDependencyTypes;
 	}
+	
+	//ignoreDependencyType 이 불릴때 마다 증가, 캐쉬된 생성 정보가 아직 유효한지 검사할때 사용
+	protected int getIgnoredDependencyTypesVersion() {
+		return ignoredDependencyTypesVersion;
+	}
 
 	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
 		this.beanPostProcessors.add(beanPostProcessor);
@@ -312,21 +963,74 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	public List getBeanPostProcessors() {
 		return beanPostProcessors;
 	}
+	
+	public synchronized void addBeanCreationListener(BeanCreationListener beanCreationListener) {
+		BeanCreationListener[] listeners = new BeanCreationListener[this.beanCreationListeners.length + 1];
+		System.arraycopy(this.beanCreationListeners, 0, listeners, 0, this.beanCreationListeners.length);
+		listeners[listeners.length - 1] = beanCreationListener;
+		this.beanCreationListeners = listeners;
+	}
+	
+	public synchronized void removeBeanCreationListener(BeanCreationListener beanCreationListener) {
+		List listeners = new ArrayList(Arrays.asList(this.beanCreationListeners));
+		if (listeners.remove(beanCreationListener)) {
+			this.beanCreationListeners = (BeanCreationListener[]) listeners.toArray(new BeanCreationListener[listeners.size()]);
+		}
+	}
+	
+	protected BeanCreationListener[] getBeanCreationListeners() {
+		return beanCreationListeners;
+	}
 
 	public void registerAlias(String beanName, String alias) throws BeanDefinitionStoreException {
+		if (this.frozenAliasMap != null) {
+			throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
+																						 "': bean factory is frozen");
+		}
 		logger.debug("Registering alias '" + alias + "' for bean with name '" + beanName + "'");
-		synchronized (this.aliasMap) {
-			Object registeredName = this.aliasMap.get(alias);
-			if (registeredName != null) {
-				throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
-																							 "': it's already registered for bean name '" + registeredName + "'");
+		Object registeredName = this.aliasMap.putIfAbsent(alias, beanName);
+		if (registeredName != null) {
+			throw new BeanDefinitionStoreException("Cannot register alias '" + alias + "' for bean name '" + beanName +
+																						 "': it's already registered for bean name '" + registeredName + "'");
+		}
+	}
+
+	//alias 를 더 이상 등록하지 않게 하고 읽기 전용 배열 map 으로 바꾼다
+	//getAliases 에서 매번 전체 alias 를 훑지 않게 bean name -> alias 역방향 index 도 만든다
+	//registerAlias 와 겹치지 않게 하는건 호출하는 쪽 (DefaultListableBeanFactory 의 registrationLock)
+	protected synchronized void freezeAliases() {
+		if (this.frozenAliasMap != null) {
+			return;
+		}
+		Map aliasesByName = new HashMap();
+		for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			List aliases = (List) aliasesByName.get(entry.getValue());
+			if (aliases == null) {
+				aliases = new ArrayList();
+				aliasesByName.put(entry.getValue(), aliases);
 			}
-			this.aliasMap.put(alias, beanName);
+			aliases.add(entry.getKey());
+		}
+		for (Iterator it = aliasesByName.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			List aliases = (List) entry.getValue();
+			entry.setValue(aliases.toArray(new String[aliases.size()]));
 		}
+		this.frozenAliasesByName = new FrozenNameMap(aliasesByName);
+		this.frozenAliasMap = new FrozenNameMap(this.aliasMap);
+		//이후로는 frozen map 만 읽으니 비운다
+		this.aliasMap.clear();
+	}
+
+	protected boolean isAliasRegistryFrozen() {
+		return (this.frozenAliasMap != null);
 	}
 
 	public void registerSingleton(String beanName, Object singletonObject) throws BeanDefinitionStoreException {
-		synchronized (this.singletonCache) {
+		ReentrantLock lock = getSingletonLock(beanName);
+		lock.lock();
+		try {
 			Object oldObject = this.singletonCache.get(beanName);
 			if (oldObject != null) {
 				throw new BeanDefinitionStoreException("Could not register object [" + singletonObject +
@@ -334,33 +1038,289 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 																							 oldObject + " bound");
 			}
 			addSingleton(beanName, singletonObject);
+			this.singletonCompletionOrder.add(beanName);
 		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	protected boolean containsSingleton(String beanName) {
+		return this.singletonCache.containsKey(beanName);
+	}
+	
+	//createBean 이 생성자 호출 직후 부른다, getOrCreateSingleton 이 끝나면 지워진다
+	protected void addEarlySingleton(String beanName, Object singletonObject) {
+		this.earlySingletonReferences.put(beanName, singletonObject);
 	}
 	
 	protected void addSingleton(String beanName, Object singletonObject) {
 		this.singletonCache.put(beanName, singletonObject);
+		this.singletonTypeIndex.register(beanName, singletonObject.getClass());
 	}
 
+	public void setParallelDestroy(boolean parallelDestroy) {
+		this.parallelDestroy = parallelDestroy;
+	}
+	
+	public boolean isParallelDestroy() {
+		return parallelDestroy;
+	}
+	
+	public void setDestroyThreads(int destroyThreads) {
+		if (destroyThreads < 1) {
+			throw new IllegalArgumentException("destroyThreads must be at least 1");
+		}
+		this.destroyThreads = destroyThreads;
+	}
+	
+	public int getDestroyThreads() {
+		return destroyThreads;
+	}
+	
+	public void setDestroyTimeout(long destroyTimeout) {
+		this.destroyTimeout = destroyTimeout;
+	}
+	
+	public long getDestroyTimeout() {
+		return destroyTimeout;
+	}
+	
+	public void setShutdownTimeout(long shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+	
+	public long getShutdownTimeout() {
+		return shutdownTimeout;
+	}
+	
 	public void destroySingletons() {
 		if (logger.isInfoEnabled()) {
 			logger.info("Destroying singletons in factory {" + this + "}");
 		}
-		synchronized (this.singletonCache) {
+		//생성 완료 역순으로 destroy, 의존하는 빈은 destroyBean 에서 먼저 destroy 된다
+		String[] singletonNames = null;
+		synchronized (this.singletonCompletionOrder) {
+			singletonNames = (String[]) this.singletonCompletionOrder.toArray(new String[this.singletonCompletionOrder.size()]);
+		}
+		long deadline = Long.MAX_VALUE;
+		if (this.parallelDestroy) {
+			if (this.shutdownTimeout > 0) {
+				deadline = System.currentTimeMillis() + this.shutdownTimeout;
+			}
+			destroySingletonsInParallel(singletonNames, deadline);
+		}
+		else {
+			for (int i = singletonNames.length - 1; i >= 0; i--) {
+				destroySingleton(singletonNames[i]);
+			}
+			//생성중에 실패한 빈처럼 완료 순서에 없는 싱글톤
 			Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
 			for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
 				destroySingleton((String) it.next());
 			}
 		}
+		destroyInnerBeans(deadline);
+		destroyBeanPools();
+		//모든 쓰레드의 thread-scope 객체, GC 된 쓰레드 것 부터
+		destroyThreadScopedBeansOfTerminatedThreads();
+		this.threadScopedBeans.remove();
+		for (Iterator it = this.threadScopedBeanMaps.keySet().iterator(); it.hasNext();) {
+			Map beans = (Map) this.threadScopedBeanMaps.remove(it.next());
+			if (beans != null) {
+				destroyThreadScopedBeans(beans);
+			}
+		}
+	}
+	
+	//의존하는 빈이 모두 destroy 된 빈부터 병렬로 destroy
+	//순환 참조로 남은 빈은 생성 완료 역순으로 하나씩 시작한다
+	private void destroySingletonsInParallel(String[] orderedNames, long deadline) {
+		Set names = new LinkedHashSet(this.singletonCache.keySet());
+		names.removeAll(Arrays.asList(orderedNames));
+		//완료 순서에 없는 싱글톤은 앞에 두어서 나중에 destroy
+		names.addAll(Arrays.asList(orderedNames));
+		String[] beanNames = (String[]) names.toArray(new String[names.size()]);
+		Map indexByName = new HashMap();
+		for (int i = 0; i < beanNames.length; i++) {
+			indexByName.put(beanNames[i], Integer.valueOf(i));
+		}
+		int[] pendingDependents = new int[beanNames.length];
+		List[] successors = new List[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			String[] dependents = getDependingBeanNames(beanNames[i]);
+			for (int j = 0; j < dependents.length; j++) {
+				Integer dependentIndex = (Integer) indexByName.get(dependents[j]);
+				if (dependentIndex != null && dependentIndex.intValue() != i) {
+					int index = dependentIndex.intValue();
+					if (successors[index] == null) {
+						successors[index] = new ArrayList();
+					}
+					successors[index].add(Integer.valueOf(i));
+					pendingDependents[i]++;
+				}
+			}
+		}
+		List unfinished = destroyInParallel(beanNames, null, pendingDependents, successors, deadline);
+		if (!unfinished.isEmpty()) {
+			logger.warn("Shutdown timeout of " + this.shutdownTimeout + " ms exceeded: singletons " + unfinished
+					+ " not destroyed");
+			//실행중인 destroy 는 기다리지 않고 버리고, 시작도 못한 빈은 destroy 없이 캐쉬에서만 제거
+			for (Iterator it = unfinished.iterator(); it.hasNext();) {
+				removeSingleton((String) it.next());
+			}
+		}
+	}
+	
+	//beans 가 null 이면 싱글톤 캐쉬에 있는 이름으로 destroy
+	//successors[i] 는 i 가 끝나면 남은 의존 개수가 줄어드는 index 목록
+	//deadline 까지 끝나지 않은 bean name 을 리턴
+	protected List destroyInParallel(String[] beanNames, Object[] beans, int[] pendingDependents, List[] successors,
+			long deadline) {
+		ExecutorService executor = Executors.newFixedThreadPool(this.destroyThreads, new ThreadFactory() {
+			private int threadCount = 0;
+			public synchronized Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "destroy-" + (++threadCount));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		CompletionService completionService = new ExecutorCompletionService(executor);
+		boolean[] submitted = new boolean[beanNames.length];
+		//Future -> DestructionTask, 시작했고 아직 안 끝난 destroy
+		Map running = new LinkedHashMap();
+		int finished = 0;
+		try {
+			for (int i = beanNames.length - 1; i >= 0; i--) {
+				if (pendingDependents[i] == 0) {
+					submitDestruction(i, beanNames, beans, submitted, running, completionService);
+				}
+			}
+			while (finished < beanNames.length) {
+				if (running.isEmpty()) {
+					int next = beanNames.length - 1;
+					while (submitted[next]) {
+						next--;
+					}
+					submitDestruction(next, beanNames, beans, submitted, running, completionService);
+					continue;
+				}
+				long now = System.currentTimeMillis();
+				if (now >= deadline) {
+					break;
+				}
+				long wait = deadline - now;
+				//제한 시간을 넘긴 빈은 기다리지 않고 끝난 것으로 처리
+				List overran = new ArrayList();
+				if (this.destroyTimeout > 0) {
+					wait = Math.min(wait, this.destroyTimeout);
+					for (Iterator it = running.values().iterator(); it.hasNext();) {
+						DestructionTask task = (DestructionTask) it.next();
+						if (task.startTime != 0) {
+							long overrunTime = task.startTime + this.destroyTimeout;
+							if (overrunTime <= now) {
+								it.remove();
+								overran.add(task);
+							}
+							else {
+								wait = Math.min(wait, overrunTime - now);
+							}
+						}
+					}
+				}
+				for (int i = 0; i < overran.size(); i++) {
+					DestructionTask task = (DestructionTask) overran.get(i);
+					logger.warn("Destroy of bean '" + task.beanName + "' did not finish within " + this.destroyTimeout
+							+ " ms: continuing shutdown without waiting for it");
+					finished++;
+					submitSuccessors(task.index, beanNames, beans, pendingDependents, successors, submitted, running,
+							completionService);
+				}
+				if (!overran.isEmpty()) {
+					continue;
+				}
+				Future future = completionService.poll(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+				if (future != null) {
+					DestructionTask task = (DestructionTask) running.remove(future);
+					if (task != null) {
+						finished++;
+						submitSuccessors(task.index, beanNames, beans, pendingDependents, successors, submitted, running,
+								completionService);
+					}
+					else if (logger.isInfoEnabled()) {
+						logger.info("Destroy that exceeded its timeout has finished");
+					}
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			//멈춰 있는 destroy 를 interrupt 하고 끝나기를 기다리지 않는다, worker 는 daemon 쓰레드
+			executor.shutdownNow();
+		}
+		List unfinished = new ArrayList();
+		for (Iterator it = running.values().iterator(); it.hasNext();) {
+			unfinished.add(((DestructionTask) it.next()).beanName);
+		}
+		for (int i = beanNames.length - 1; i >= 0; i--) {
+			if (!submitted[i]) {
+				unfinished.add(beanNames[i]);
+			}
+		}
+		return unfinished;
+	}
+	
+	private void submitDestruction(int index, String[] beanNames, Object[] beans, boolean[] submitted, Map running,
+			CompletionService completionService) {
+		submitted[index] = true;
+		DestructionTask task = new DestructionTask(index, beanNames[index], (beans != null ? beans[index] : null));
+		running.put(completionService.submit(task), task);
+	}
+	
+	private void submitSuccessors(int index, String[] beanNames, Object[] beans, int[] pendingDependents,
+			List[] successors, boolean[] submitted, Map running, CompletionService completionService) {
+		if (successors[index] == null) {
+			return;
+		}
+		for (Iterator it = successors[index].iterator(); it.hasNext();) {
+			int successor = ((Integer) it.next()).intValue();
+			if (--pendingDependents[successor] == 0 && !submitted[successor]) {
+				submitDestruction(successor, beanNames, beans, submitted, running, completionService);
+			}
+		}
+	}
+	
+	//싱글톤 이외에 destroy 할 객체, 하위 클레스에서 구현
+	protected void destroyInnerBeans(long deadline) {
 	}
 	
 	//케쉬 에서 빈 제거
+	//remove 가 원자적이라 여러 쓰레드가 불러도 한번만 destroy 된다
 	protected void destroySingleton(String beanName) {
-		Object singletonInstance = this.singletonCache.remove(beanName);
+		Object singletonInstance = removeSingleton(beanName);
 		if (singletonInstance != null) {
 			destroyBean(beanName, singletonInstance);
 		}
 	}
 	
+	private Object removeSingleton(String beanName) {
+		ReentrantLock lock = getSingletonLock(beanName);
+		lock.lock();
+		try {
+			this.factoryBeanObjectCache.remove(beanName);
+			this.singletonTypeIndex.remove(beanName);
+			this.singletonCompletionOrder.remove(beanName);
+			Object singletonInstance = this.singletonCache.remove(beanName);
+			clearBeanHandles(beanName);
+			return singletonInstance;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
 	//editor 등록
 	protected void initBeanWrapper(BeanWrapper bw) {
 		for (Iterator it = this.customEditors.keySet().iterator(); it.hasNext();) {
@@ -371,17 +1331,11 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	
 	// 싱글톤 케쉬에서 이름 다 가져오기
 	public String[] getSingletonNames(Class type) {
-		Set keys = this.singletonCache.keySet();
-		Set matches = new HashSet();
-		Iterator itr = keys.iterator();
-		while (itr.hasNext()) {
-			String name = (String) itr.next();
-			Object singletonObject = this.singletonCache.get(name);
-			if (type == null || type.isAssignableFrom(singletonObject.getClass())) {
-				matches.add(name);
-			}
+		if (type == null) {
+			Set keys = this.singletonCache.keySet();
+			return (String[]) keys.toArray(new String[keys.size()]);
 		}
-		return (String[]) matches.toArray(new String[matches.size()]);
+		return this.singletonTypeIndex.getNames(type);
 	}
 	
 	
@@ -394,4 +1348,41 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	
 	protected abstract void destroyBean(String beanName, Object bean);
 	
+	//beanName 에 의존하는 bean name, 먼저 destroy 되어야 한다
+	protected abstract String[] getDependingBeanNames(String beanName);
+	
+	
+	private class DestructionTask implements Callable {
+		
+		private final int index;
+		
+		private final String beanName;
+		
+		private final Object bean;
+		
+		//시작한 시간, 시작 전이면 0
+		private volatile long startTime;
+		
+		private DestructionTask(int index, String beanName, Object bean) {
+			this.index = index;
+			this.beanName = beanName;
+			this.bean = bean;
+		}
+		
+		public Object call() {
+			this.startTime = System.currentTimeMillis();
+			try {
+				if (this.bean != null) {
+					destroyBean(this.beanName, this.bean);
+				}
+				else {
+					destroySingleton(this.beanName);
+				}
+			}
+			catch (Throwable ex) {
+				logger.error("Destroy of bean '" + this.beanName + "' failed", ex);
+			}
+			return this;
+		}
+	}
 }
@@ -0,0 +1,399 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.BeanIsNotAFactoryException;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+
+//XmlBeanFactoryGenerator 가 만든 클레스의 상위 클레스
+//빈 생성과 주입은 하위 클레스의 생성된 코드가 직접 생성자, setter 를 호출해서 한다
+//여기서는 이름 -> 빈 조회, FactoryBean, alias, destroy 만 처리
+public abstract class AbstractCompiledBeanFactory implements ListableBeanFactory {
+
+	//다른 쓰레드의 lock 을 기다리는 동안 순환 검사를 다시 하는 간격
+	private static final long SINGLETON_LOCK_CHECK_INTERVAL_MILLIS = 50;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	//definition 등록 순서
+	private final String[] beanNames;
+
+	//bean name 별 빈 클레스
+	private final Class[] beanTypes;
+
+	private final boolean[] singletons;
+
+	//bean name -> Integer index
+	private final Map indexByName = new HashMap();
+
+	private final Map aliasMap = new HashMap();
+
+	private final Map singletonCache = new ConcurrentHashMap();
+
+	//싱글톤 index 별 생성 lock, prototype 은 null
+	private final SingletonLock[] singletonLocks;
+
+	//Thread -> 기다리고 있는 싱글톤 Integer index
+	private final Map singletonLockWaits = new ConcurrentHashMap();
+
+	//생성이 끝난 순서, destroy 는 역순
+	private final List singletonOrder = Collections.synchronizedList(new ArrayList());
+
+	//FactoryBean 이름 -> 싱글톤 FactoryBean 이 만든 객체
+	private final Map factoryBeanObjectCache = new ConcurrentHashMap();
+
+	protected AbstractCompiledBeanFactory(String[] beanNames, Class[] beanTypes, boolean[] singletons) {
+		this.beanNames = beanNames;
+		this.beanTypes = beanTypes;
+		this.singletons = singletons;
+		this.singletonLocks = new SingletonLock[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			this.indexByName.put(beanNames[i], Integer.valueOf(i));
+			if (singletons[i]) {
+				this.singletonLocks[i] = new SingletonLock();
+			}
+		}
+	}
+
+	//생성된 생성자에서만 호출
+	protected void registerAlias(String beanName, String alias) {
+		this.aliasMap.put(alias, beanName);
+	}
+
+	//생성된 싱글톤 getter 가 초기화를 끝낸 뒤 호출
+	protected void registerSingleton(String beanName, Object bean) {
+		this.singletonCache.put(beanName, bean);
+		this.singletonOrder.add(beanName);
+	}
+
+	//생성된 싱글톤 getter 가 빈 마다 따로 잡는 lock, AbstractBeanFactory 처럼 전체를 막는 monitor 는 없다
+	//같은 쓰레드의 순환 참조는 재진입, 쓰레드 사이의 순환은 기다리다가 BeanCurrentlyInCreationException
+	protected void lockSingleton(int index) throws BeanCreationException {
+		ReentrantLock lock = this.singletonLocks[index];
+		if (lock.tryLock()) {
+			return;
+		}
+		Thread currentThread = Thread.currentThread();
+		this.singletonLockWaits.put(currentThread, Integer.valueOf(index));
+		try {
+			do {
+				checkForConcurrentCircularReference(index);
+			}
+			while (!lock.tryLock(SINGLETON_LOCK_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS));
+		}
+		catch (InterruptedException ex) {
+			currentThread.interrupt();
+			throw new BeanCreationException("Error creating bean with name '" + this.beanNames[index] +
+					"': interrupted while waiting for singleton creation in another thread");
+		}
+		finally {
+			this.singletonLockWaits.remove(currentThread);
+		}
+	}
+
+	protected void unlockSingleton(int index) {
+		this.singletonLocks[index].unlock();
+	}
+
+	//lock owner -> 그 쓰레드가 기다리는 index -> 그 lock owner ... 를 따라가서 자기 자신이 나오면 순환
+	private void checkForConcurrentCircularReference(int index) throws BeanCreationException {
+		Thread currentThread = Thread.currentThread();
+		int awaitedIndex = index;
+		int maxHops = this.singletonLockWaits.size() + 1;
+		for (int i = 0; i < maxHops; i++) {
+			Thread owner = this.singletonLocks[awaitedIndex].getOwnerThread();
+			if (owner == null) {
+				return;
+			}
+			if (owner == currentThread) {
+				throw new BeanCurrentlyInCreationException("Error creating bean with name '" + this.beanNames[index] +
+						"': circular reference between singletons currently in creation in different threads " +
+						"(waiting for '" + this.beanNames[awaitedIndex] + "')");
+			}
+			Integer waitingFor = (Integer) this.singletonLockWaits.get(owner);
+			if (waitingFor == null) {
+				return;
+			}
+			awaitedIndex = waitingFor.intValue();
+		}
+	}
+
+	//index 의 빈, 싱글톤이면 getter 를 통해 한번만 생성
+	protected abstract Object createBean(int index) throws Exception;
+
+	//destroy-method 호출, DisposableBean 은 여기서 처리한다
+	protected void destroyBean(int index, Object bean) throws Exception {
+	}
+
+	//생성할때 알수 없었던 타입 변환, BeanWrapper 의 PropertyEditor 를 사용
+	protected Object convert(Object value, Class requiredType) throws BeansException {
+		return new BeanWrapperImpl().doTypeConversionIfNecessary(value, requiredType);
+	}
+
+	protected static List list(Object[] elements) {
+		List list = new ArrayList(elements.length);
+		for (int i = 0; i < elements.length; i++) {
+			list.add(elements[i]);
+		}
+		return list;
+	}
+
+	protected static Set set(Object[] elements) {
+		Set set = new HashSet();
+		for (int i = 0; i < elements.length; i++) {
+			set.add(elements[i]);
+		}
+		return set;
+	}
+
+	//key, value 가 번갈아 있는 배열
+	protected static Map map(Object[] keysAndValues) {
+		Map map = new HashMap();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
+	protected static Properties properties(String[] keysAndValues) {
+		Properties props = new Properties();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			props.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return props;
+	}
+
+	private String transformedBeanName(String name) throws NoSuchBeanDefinitionException {
+		if (name == null) {
+			throw new NoSuchBeanDefinitionException(name, "Cannot get bean with null name");
+		}
+		if (name.startsWith(AbstractBeanFactory.FACTORY_BEAN_PREFIX)) {
+			name = name.substring(AbstractBeanFactory.FACTORY_BEAN_PREFIX.length());
+		}
+		String canonicalName = (String) this.aliasMap.get(name);
+		return (canonicalName != null ? canonicalName : name);
+	}
+
+	private int getIndex(String beanName) throws NoSuchBeanDefinitionException {
+		Integer index = (Integer) this.indexByName.get(beanName);
+		if (index == null) {
+			throw new NoSuchBeanDefinitionException(beanName, toString());
+		}
+		return index.intValue();
+	}
+
+	public Object getBean(String name) throws BeansException {
+		String beanName = transformedBeanName(name);
+		Object bean = this.singletonCache.get(beanName);
+		if (bean == null) {
+			int index = getIndex(beanName);
+			try {
+				bean = createBean(index);
+			}
+			catch (BeansException ex) {
+				throw ex;
+			}
+			catch (Exception ex) {
+				throw new BeanCreationException(toString(), beanName, "Compiled bean creation failed", ex);
+			}
+		}
+		boolean factoryDereference = name.startsWith(AbstractBeanFactory.FACTORY_BEAN_PREFIX);
+		if (factoryDereference && !(bean instanceof FactoryBean)) {
+			throw new BeanIsNotAFactoryException(beanName, bean);
+		}
+		if (!(bean instanceof FactoryBean) || factoryDereference) {
+			return bean;
+		}
+		FactoryBean factory = (FactoryBean) bean;
+		Object product = this.factoryBeanObjectCache.get(beanName);
+		if (product != null) {
+			return product;
+		}
+		if (!factory.isSingleton()) {
+			return getFactoryBeanObject(beanName, factory);
+		}
+		//싱글톤 product 는 FactoryBean 의 lock 안에서 다시 확인하고 한번만 만든다
+		int index = getIndex(beanName);
+		lockSingleton(index);
+		try {
+			product = this.factoryBeanObjectCache.get(beanName);
+			if (product == null) {
+				product = getFactoryBeanObject(beanName, factory);
+				this.factoryBeanObjectCache.put(beanName, product);
+			}
+			return product;
+		}
+		finally {
+			unlockSingleton(index);
+		}
+	}
+
+	private Object getFactoryBeanObject(String beanName, FactoryBean factory) throws BeansException {
+		Object product = null;
+		try {
+			product = factory.getObject();
+		}
+		catch (Exception ex) {
+			throw new BeanCreationException(toString(), beanName, "FactoryBean threw exception on object creation", ex);
+		}
+		if (product == null) {
+			throw new BeanCreationException(toString(), beanName, "FactoryBean returned null object");
+		}
+		return product;
+	}
+
+	public Object getBean(String name, Class requiredType) throws BeansException {
+		Object bean = getBean(name);
+		if (!requiredType.isAssignableFrom(bean.getClass())) {
+			throw new BeanNotOfRequiredTypeException(name, requiredType, bean);
+		}
+		return bean;
+	}
+
+	public boolean containsBean(String name) {
+		return this.indexByName.containsKey(transformedBeanName(name));
+	}
+
+	public boolean isSingleton(String name) throws NoSuchBeanDefinitionException {
+		String beanName = transformedBeanName(name);
+		int index = getIndex(beanName);
+		if (FactoryBean.class.isAssignableFrom(this.beanTypes[index]) &&
+				!name.startsWith(AbstractBeanFactory.FACTORY_BEAN_PREFIX)) {
+			return ((FactoryBean) getBean(AbstractBeanFactory.FACTORY_BEAN_PREFIX + beanName)).isSingleton();
+		}
+		return this.singletons[index];
+	}
+
+	public String[] getAliases(String name) throws NoSuchBeanDefinitionException {
+		String beanName = transformedBeanName(name);
+		getIndex(beanName);
+		List aliases = new ArrayList();
+		for (Iterator it = this.aliasMap.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if (entry.getValue().equals(beanName)) {
+				aliases.add(entry.getKey());
+			}
+		}
+		return (String[]) aliases.toArray(new String[aliases.size()]);
+	}
+
+	public int getBeanDefinitionCount() {
+		return this.beanNames.length;
+	}
+
+	public String[] getBeanDefinitionNames() {
+		return this.beanNames.clone();
+	}
+
+	public String[] getBeanDefinitionNames(Class type) {
+		List matches = new ArrayList();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			if (type.isAssignableFrom(this.beanTypes[i])) {
+				matches.add(this.beanNames[i]);
+			}
+		}
+		return (String[]) matches.toArray(new String[matches.size()]);
+	}
+
+	public boolean containsBeanDefinition(String name) {
+		return this.indexByName.containsKey(name);
+	}
+
+	public Map getBeansOfType(Class type, boolean includePrototypes, boolean includeFactoryBeans) throws BeansException {
+		Map result = new HashMap();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			if (FactoryBean.class.isAssignableFrom(this.beanTypes[i])) {
+				if (includeFactoryBeans) {
+					FactoryBean factory = (FactoryBean) getBean(AbstractBeanFactory.FACTORY_BEAN_PREFIX + this.beanNames[i]);
+					Class objectType = factory.getObjectType();
+					if ((factory.isSingleton() || includePrototypes) && objectType != null && type.isAssignableFrom(objectType)) {
+						result.put(this.beanNames[i], getBean(this.beanNames[i]));
+					}
+				}
+			}
+			else if (type.isAssignableFrom(this.beanTypes[i]) && (this.singletons[i] || includePrototypes)) {
+				result.put(this.beanNames[i], getBean(this.beanNames[i]));
+			}
+		}
+		return result;
+	}
+
+	public String[] getBeanNamesForType(Class type) throws BeansException {
+		List matches = new ArrayList();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			if (FactoryBean.class.isAssignableFrom(this.beanTypes[i])) {
+				FactoryBean factory = (FactoryBean) getBean(AbstractBeanFactory.FACTORY_BEAN_PREFIX + this.beanNames[i]);
+				Class objectType = factory.getObjectType();
+				if (objectType != null ? type.isAssignableFrom(objectType) :
+						(factory.isSingleton() && type.isInstance(getBean(this.beanNames[i])))) {
+					matches.add(this.beanNames[i]);
+				}
+			}
+			else if (type.isAssignableFrom(this.beanTypes[i])) {
+				matches.add(this.beanNames[i]);
+			}
+		}
+		return (String[]) matches.toArray(new String[matches.size()]);
+	}
+	
+	//생성 완료 역순으로 destroy
+	public void destroySingletons() {
+		if (logger.isInfoEnabled()) {
+			logger.info("Destroying singletons in factory {" + this + "}");
+		}
+		String[] names = null;
+		synchronized (this.singletonOrder) {
+			names = (String[]) this.singletonOrder.toArray(new String[this.singletonOrder.size()]);
+			this.singletonOrder.clear();
+		}
+		for (int i = names.length - 1; i >= 0; i--) {
+			Object bean = this.singletonCache.remove(names[i]);
+			this.factoryBeanObjectCache.remove(names[i]);
+			if (bean != null) {
+				try {
+					if (bean instanceof DisposableBean) {
+						((DisposableBean) bean).destroy();
+					}
+					destroyBean(getIndex(names[i]), bean);
+				}
+				catch (Exception ex) {
+					logger.error("Destroy method on bean with name '" + names[i] + "' threw an exception", ex);
+				}
+			}
+		}
+	}
+
+	public String toString() {
+		return getClass().getName() + " defining beans " + this.indexByName.keySet();
+	}
+
+	//ReentrantLock.getOwner 는 protected 라서 순환 검사용으로 꺼낸다
+	private static class SingletonLock extends ReentrantLock {
+
+		private Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+//파싱 쓰레드가 Class.forName 하기 전에 다른 쓰레드에서 bean class 를 미리 load
+//static initializer 는 실행하지 않는다
+//결과는 버리고 실패도 무시, 파싱 쓰레드가 다시 Class.forName 해서 등록 순서대로 예외가 난다
+class BeanClassPrefetcher {
+
+	private static final Log logger = LogFactory.getLog(BeanClassPrefetcher.class);
+
+	private final ClassLoader classLoader;
+
+	//문서 순서, 파싱 쓰레드가 먼저 필요한 클레스 부터
+	private final String[] classNames;
+
+	private final AtomicInteger nextIndex = new AtomicInteger();
+
+	BeanClassPrefetcher(ClassLoader classLoader, String[] classNames) {
+		this.classLoader = classLoader;
+		this.classNames = classNames;
+	}
+
+	//daemon 쓰레드를 시작하고 바로 돌아온다
+	void start(int threadCount) {
+		threadCount = Math.min(threadCount, this.classNames.length);
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread("BeanClassPrefetcher-" + i) {
+				public void run() {
+					prefetch();
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void prefetch() {
+		int index;
+		while ((index = this.nextIndex.getAndIncrement()) < this.classNames.length) {
+			try {
+				Class.forName(this.classNames[index], false, this.classLoader);
+			}
+			catch (ClassNotFoundException ex) {
+				logger.debug("Could not prefetch bean class [" + this.classNames[index] + "]: " + ex.getMessage());
+			}
+			catch (LinkageError err) {
+				logger.debug("Could not prefetch bean class [" + this.classNames[index] + "]: " + err);
+			}
+		}
+	}
+
+}
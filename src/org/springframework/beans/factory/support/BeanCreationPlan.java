@@ -0,0 +1,101 @@
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+//RootBeanDefinition 별로 한번 구해두면 되는 생성 정보
+//prototype 빈은 매번 생성자 정렬, 프로퍼티 검사, init 메서드 찾기를 다시 하지 않고 이것을 사용한다
+//ignoreDependencyType 이 바뀌거나 BeanFactoryPostProcessor 등이 프로퍼티, 생성자 인자를 바꾸면 새로 만든다
+class BeanCreationPlan {
+
+	private final int ignoredDependencyTypesVersion;
+
+	//만들때의 MutablePropertyValues, ConstructorArgumentValues 변경 횟수
+	private final int propertyValuesModificationCount;
+
+	private final int constructorArgumentsModificationCount;
+
+	//파라미터 개수가 많은 순서로 정렬된 생성자
+	private volatile Constructor[] sortedConstructors;
+
+	//autowireConstructor 에서 선택된 생성자
+	private volatile Constructor resolvedConstructor;
+
+	//autowire 대상 프로퍼티 이름
+	private volatile String[] unsatisfiedObjectProperties;
+
+	//autowire 없는 빈의 dependency check 통과 여부
+	private volatile boolean dependencyCheckPassed;
+
+	private volatile ResolvedInitMethod initMethod;
+
+	BeanCreationPlan(int ignoredDependencyTypesVersion, int propertyValuesModificationCount,
+			int constructorArgumentsModificationCount) {
+		this.ignoredDependencyTypesVersion = ignoredDependencyTypesVersion;
+		this.propertyValuesModificationCount = propertyValuesModificationCount;
+		this.constructorArgumentsModificationCount = constructorArgumentsModificationCount;
+	}
+
+	boolean isUpToDate(int ignoredDependencyTypesVersion, int propertyValuesModificationCount,
+			int constructorArgumentsModificationCount) {
+		return (this.ignoredDependencyTypesVersion == ignoredDependencyTypesVersion &&
+				this.propertyValuesModificationCount == propertyValuesModificationCount &&
+				this.constructorArgumentsModificationCount == constructorArgumentsModificationCount);
+	}
+
+	Constructor[] getSortedConstructors() {
+		return sortedConstructors;
+	}
+
+	void setSortedConstructors(Constructor[] sortedConstructors) {
+		this.sortedConstructors = sortedConstructors;
+	}
+
+	Constructor getResolvedConstructor() {
+		return resolvedConstructor;
+	}
+
+	void setResolvedConstructor(Constructor resolvedConstructor) {
+		this.resolvedConstructor = resolvedConstructor;
+	}
+
+	String[] getUnsatisfiedObjectProperties() {
+		return unsatisfiedObjectProperties;
+	}
+
+	void setUnsatisfiedObjectProperties(String[] unsatisfiedObjectProperties) {
+		this.unsatisfiedObjectProperties = unsatisfiedObjectProperties;
+	}
+
+	boolean isDependencyCheckPassed() {
+		return dependencyCheckPassed;
+	}
+
+	void setDependencyCheckPassed(boolean dependencyCheckPassed) {
+		this.dependencyCheckPassed = dependencyCheckPassed;
+	}
+
+	//beanClass 에서 찾은 init 메서드, 다른 클레스에서 찾았으면 null
+	Method getInitMethod(Class beanClass) {
+		ResolvedInitMethod resolved = this.initMethod;
+		return (resolved != null && resolved.beanClass == beanClass ? resolved.method : null);
+	}
+
+	void setInitMethod(Class beanClass, Method initMethod) {
+		this.initMethod = new ResolvedInitMethod(beanClass, initMethod);
+	}
+
+	//클레스와 메서드를 한번에 바꾸기 위해 같이 저장
+	private static class ResolvedInitMethod {
+
+		private final Class beanClass;
+
+		private final Method method;
+
+		private ResolvedInitMethod(Class beanClass, Method method) {
+			this.beanClass = beanClass;
+			this.method = method;
+		}
+	}
+
+}
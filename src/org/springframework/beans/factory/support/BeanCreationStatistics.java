@@ -0,0 +1,243 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.config.BeanCreationListener;
+
+//메모리에 빈 생성 시간을 모아두는 BeanCreationListener
+//refresh() 후에 getSummary() 로 단계별 히스토그램과 오래 걸린 빈을 볼수 있다
+public class BeanCreationStatistics implements BeanCreationListener {
+
+	private static final int DEFAULT_TOP_BEANS = 10;
+
+	private final Histogram[] phaseHistograms = new Histogram[PHASE_NAMES.length];
+
+	private final Histogram creationHistogram = new Histogram();
+
+	private final Histogram lockWaitHistogram = new Histogram();
+
+	//bean name -> BeanTiming
+	private final Map beanTimings = new HashMap();
+
+	private long singletonCacheHits;
+
+	private long singletonCacheMisses;
+
+	private long failedCreations;
+
+	public BeanCreationStatistics() {
+		for (int i = 0; i < this.phaseHistograms.length; i++) {
+			this.phaseHistograms[i] = new Histogram();
+		}
+	}
+
+	public void beanCreationStarted(String beanName) {
+	}
+
+	public void beanCreationPhase(String beanName, int phase, long nanos) {
+		this.phaseHistograms[phase].record(nanos);
+	}
+
+	public void beanCreationFinished(String beanName, long nanos, boolean success) {
+		this.creationHistogram.record(nanos);
+		synchronized (this) {
+			if (!success) {
+				this.failedCreations++;
+			}
+			BeanTiming timing = (BeanTiming) this.beanTimings.get(beanName);
+			if (timing == null) {
+				timing = new BeanTiming(beanName);
+				this.beanTimings.put(beanName, timing);
+			}
+			timing.count++;
+			timing.totalNanos += nanos;
+		}
+	}
+
+	public synchronized void singletonCacheHit(String beanName) {
+		this.singletonCacheHits++;
+	}
+
+	public synchronized void singletonCacheMiss(String beanName) {
+		this.singletonCacheMisses++;
+	}
+
+	public void singletonLockWaited(String beanName, long nanos) {
+		this.lockWaitHistogram.record(nanos);
+	}
+
+	public synchronized long getSingletonCacheHits() {
+		return singletonCacheHits;
+	}
+
+	public synchronized long getSingletonCacheMisses() {
+		return singletonCacheMisses;
+	}
+
+	public synchronized long getFailedCreations() {
+		return failedCreations;
+	}
+
+	public long getCreationCount() {
+		return this.creationHistogram.getCount();
+	}
+
+	//빈 생성 전체 시간 합계, 안에서 생성된 빈 시간도 포함
+	public synchronized long getTotalCreationNanos(String beanName) {
+		BeanTiming timing = (BeanTiming) this.beanTimings.get(beanName);
+		return (timing != null ? timing.totalNanos : 0);
+	}
+
+	public synchronized void reset() {
+		for (int i = 0; i < this.phaseHistograms.length; i++) {
+			this.phaseHistograms[i].reset();
+		}
+		this.creationHistogram.reset();
+		this.lockWaitHistogram.reset();
+		this.beanTimings.clear();
+		this.singletonCacheHits = 0;
+		this.singletonCacheMisses = 0;
+		this.failedCreations = 0;
+	}
+
+	public String getSummary() {
+		return getSummary(DEFAULT_TOP_BEANS);
+	}
+
+	//단계별 count/total/avg/p50/p90/p99/max, 캐쉬 hit/miss, 오래 걸린 빈 topBeans 개
+	public synchronized String getSummary(int topBeans) {
+		StringBuffer sb = new StringBuffer();
+		sb.append("Bean creation statistics: ").append(getCreationCount()).append(" beans created (")
+				.append(this.failedCreations).append(" failed), singleton cache hits=").append(this.singletonCacheHits)
+				.append(", misses=").append(this.singletonCacheMisses).append('\n');
+		appendHistogram(sb, "total", this.creationHistogram);
+		for (int i = 0; i < this.phaseHistograms.length; i++) {
+			appendHistogram(sb, PHASE_NAMES[i], this.phaseHistograms[i]);
+		}
+		appendHistogram(sb, "lockWait", this.lockWaitHistogram);
+
+		List timings = new ArrayList(this.beanTimings.values());
+		Collections.sort(timings, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				long t1 = ((BeanTiming) o1).totalNanos;
+				long t2 = ((BeanTiming) o2).totalNanos;
+				return (t1 < t2 ? 1 : (t1 > t2 ? -1 : 0));
+			}
+		});
+		sb.append("Slowest beans (inclusive):\n");
+		int n = 0;
+		for (Iterator it = timings.iterator(); it.hasNext() && n < topBeans; n++) {
+			BeanTiming timing = (BeanTiming) it.next();
+			sb.append("  ").append(timing.beanName).append(": ").append(formatMillis(timing.totalNanos))
+					.append(" ms in ").append(timing.count).append(" creation(s)\n");
+		}
+		return sb.toString();
+	}
+
+	public String toString() {
+		return getSummary();
+	}
+
+	private void appendHistogram(StringBuffer sb, String name, Histogram histogram) {
+		synchronized (histogram) {
+			sb.append("  ").append(name).append(": count=").append(histogram.count);
+			if (histogram.count > 0) {
+				sb.append(", total=").append(formatMillis(histogram.totalNanos)).append(" ms, avg=")
+						.append(formatMillis(histogram.totalNanos / histogram.count)).append(" ms, p50<=")
+						.append(formatMillis(histogram.getPercentileUpperBound(50))).append(" ms, p90<=")
+						.append(formatMillis(histogram.getPercentileUpperBound(90))).append(" ms, p99<=")
+						.append(formatMillis(histogram.getPercentileUpperBound(99))).append(" ms, max=")
+						.append(formatMillis(histogram.maxNanos)).append(" ms");
+			}
+			sb.append('\n');
+		}
+	}
+
+	private static String formatMillis(long nanos) {
+		long micros = nanos / 1000;
+		StringBuffer sb = new StringBuffer();
+		sb.append(micros / 1000).append('.');
+		long fraction = micros % 1000;
+		if (fraction < 100) {
+			sb.append('0');
+		}
+		if (fraction < 10) {
+			sb.append('0');
+		}
+		sb.append(fraction);
+		return sb.toString();
+	}
+
+
+	//2의 거듭제곱 nanos 구간으로 나눈 히스토그램, 백분위수는 구간 상한으로 근사
+	private static class Histogram {
+
+		private final long[] buckets = new long[64];
+
+		private long count;
+
+		private long totalNanos;
+
+		private long maxNanos;
+
+		public synchronized void record(long nanos) {
+			if (nanos < 0) {
+				nanos = 0;
+			}
+			this.buckets[64 - Long.numberOfLeadingZeros(nanos) - (nanos == 0 ? 0 : 1)]++;
+			this.count++;
+			this.totalNanos += nanos;
+			if (nanos > this.maxNanos) {
+				this.maxNanos = nanos;
+			}
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		//bucket i 에는 [2^i, 2^(i+1)) 구간이 들어 있다
+		public synchronized long getPercentileUpperBound(int percentile) {
+			long threshold = (this.count * percentile + 99) / 100;
+			long seen = 0;
+			for (int i = 0; i < this.buckets.length; i++) {
+				seen += this.buckets[i];
+				if (seen >= threshold && seen > 0) {
+					long upperBound = (i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+					return Math.min(upperBound, this.maxNanos);
+				}
+			}
+			return this.maxNanos;
+		}
+
+		public synchronized void reset() {
+			for (int i = 0; i < this.buckets.length; i++) {
+				this.buckets[i] = 0;
+			}
+			this.count = 0;
+			this.totalNanos = 0;
+			this.maxNanos = 0;
+		}
+	}
+
+
+	private static class BeanTiming {
+
+		private final String beanName;
+
+		private long count;
+
+		private long totalNanos;
+
+		private BeanTiming(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
@@ -13,9 +13,12 @@ public interface BeanDefinitionRegistry {
 	
 	BeanDefinition getBeanDefinition(String name) throws BeansException;
 	
+	//같은 이름의 definition 을 덮어쓰면 구현에 따라 이전 definition 으로 만든 객체가 destroy 될수 있다
 	void registerBeanDefinition(String name, BeanDefinition beanDefinition)
 			throws BeansException;
 	
+	void removeBeanDefinition(String name) throws BeansException;
+	
 	String[] getAliases(String name) throws NoSuchBeanDefinitionException;
 	
 	void registerAlias(String name, String alias) throws BeansException;
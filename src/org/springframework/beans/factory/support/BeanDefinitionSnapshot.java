@@ -0,0 +1,521 @@
+package org.springframework.beans.factory.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.io.Resource;
+
+//등록된 bean definition 과 alias 를 바이너리 파일로 저장, 다시 등록
+//파일에는 설정 resource 내용의 fingerprint 가 같이 저장되고 fingerprint 가 다르면 읽지 않는다
+//문자열은 한번만 저장하고 번호로 참조해서 class 이름, 프로퍼티 이름이 반복되어도 작다
+public class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	//형식이 바뀌면 올린다
+	private static final int VERSION = 2;
+
+	private static final int NULL_VALUE = 0;
+
+	private static final int STRING_VALUE = 1;
+
+	private static final int REFERENCE_VALUE = 2;
+
+	private static final int ROOT_BEAN_DEFINITION = 3;
+
+	private static final int CHILD_BEAN_DEFINITION = 4;
+
+	private static final int LIST_VALUE = 5;
+
+	private static final int SET_VALUE = 6;
+
+	private static final int MAP_VALUE = 7;
+
+	private static final int PROPERTIES_VALUE = 8;
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final File file;
+
+	private ClassLoader beanClassLoader = Thread.currentThread().getContextClassLoader();
+
+	//0 (기본) 이면 bean class 를 미리 load 하지 않는다
+	private int classPrefetchThreads = 0;
+
+	public BeanDefinitionSnapshot(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	//null 이면 bean class 를 이름으로만 등록한다
+	public void setBeanClassLoader(ClassLoader beanClassLoader) {
+		this.beanClassLoader = beanClassLoader;
+	}
+
+	//AbstractBeanDefinitionReader 처럼 파일 앞의 bean class 이름을 다른 쓰레드에서 먼저 load
+	public void setClassPrefetchThreads(int classPrefetchThreads) {
+		this.classPrefetchThreads = classPrefetchThreads;
+	}
+
+	public int getClassPrefetchThreads() {
+		return classPrefetchThreads;
+	}
+
+	//resource 설명과 내용의 MD5
+	public static String getFingerprint(Resource[] resources) throws IOException {
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("MD5 digest not available: " + ex.getMessage());
+		}
+		byte[] buffer = new byte[8192];
+		for (int i = 0; i < resources.length; i++) {
+			digest.update(resources[i].getDescription().getBytes("UTF-8"));
+			digest.update((byte) 0);
+			InputStream is = resources[i].getInputStream();
+			try {
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			}
+			finally {
+				is.close();
+			}
+		}
+		byte[] hash = digest.digest();
+		StringBuffer sb = new StringBuffer(hash.length * 2);
+		for (int i = 0; i < hash.length; i++) {
+			sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	//파일이 있고 fingerprint 가 같으면 registry 에 등록하고 true
+	//파일을 다 읽은 다음 등록하므로 읽다가 실패하면 registry 는 그대로
+	public boolean load(String fingerprint, BeanDefinitionRegistry registry) throws IOException, BeansException {
+		if (!this.file.exists()) {
+			return false;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+		List beanNames = new ArrayList();
+		List beanDefinitions = new ArrayList();
+		List aliases = new ArrayList();
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint.equals(in.readUTF())) {
+				return false;
+			}
+			String[] strings = new String[in.readInt()];
+			byte[] bytes = new byte[256];
+			for (int i = 0; i < strings.length; i++) {
+				int length = in.readInt();
+				if (length > bytes.length) {
+					bytes = new byte[length];
+				}
+				in.readFully(bytes, 0, length);
+				strings[i] = new String(bytes, 0, length, "UTF-8");
+			}
+			Reader reader = new Reader(in, strings);
+			//Class 로 등록할 bean class 이름, definition 을 읽기 전에 load 를 시작한다
+			String[] classNames = new String[in.readInt()];
+			for (int i = 0; i < classNames.length; i++) {
+				classNames[i] = reader.readString();
+			}
+			if (this.beanClassLoader != null && this.classPrefetchThreads > 0 && classNames.length > 1) {
+				new BeanClassPrefetcher(this.beanClassLoader, classNames).start(this.classPrefetchThreads);
+			}
+			int beanCount = in.readInt();
+			for (int i = 0; i < beanCount; i++) {
+				String beanName = reader.readString();
+				beanNames.add(beanName);
+				beanDefinitions.add(reader.readValue());
+				int aliasCount = in.readInt();
+				for (int j = 0; j < aliasCount; j++) {
+					aliases.add(new String[] {beanName, reader.readString()});
+				}
+			}
+		}
+		catch (ClassNotFoundException ex) {
+			logger.info("Bean class in definition snapshot [" + this.file + "] not found - ignoring snapshot: " + ex.getMessage());
+			return false;
+		}
+		catch (RuntimeException ex) {
+			//길이가 잘못된 파일
+			throw new IOException("Corrupt definition snapshot [" + this.file + "]: " + ex);
+		}
+		finally {
+			in.close();
+		}
+		for (int i = 0; i < beanNames.size(); i++) {
+			registry.registerBeanDefinition((String) beanNames.get(i), (BeanDefinition) beanDefinitions.get(i));
+		}
+		for (int i = 0; i < aliases.size(); i++) {
+			String[] alias = (String[]) aliases.get(i);
+			registry.registerAlias(alias[0], alias[1]);
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Loaded " + beanNames.size() + " bean definitions from snapshot [" + this.file + "]");
+		}
+		return true;
+	}
+
+	//임시 파일에 쓰고 바꿔서 다른 프로세스가 쓰다 만 파일을 읽지 않게
+	public void save(String fingerprint, BeanDefinitionRegistry registry) throws IOException {
+		Writer writer = new Writer();
+		String[] beanNames = registry.getBeanDefinitionNames();
+		writer.out.writeInt(beanNames.length);
+		for (int i = 0; i < beanNames.length; i++) {
+			writer.writeString(beanNames[i]);
+			writer.writeValue(registry.getBeanDefinition(beanNames[i]));
+			String[] aliases = registry.getAliases(beanNames[i]);
+			writer.out.writeInt(aliases.length);
+			for (int j = 0; j < aliases.length; j++) {
+				writer.writeString(aliases[j]);
+			}
+		}
+
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		File tempFile = new File(this.file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(fingerprint);
+			out.writeInt(writer.strings.size());
+			for (int i = 0; i < writer.strings.size(); i++) {
+				byte[] bytes = ((String) writer.strings.get(i)).getBytes("UTF-8");
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			out.writeInt(writer.beanClassNames.size());
+			for (Iterator it = writer.beanClassNames.iterator(); it.hasNext();) {
+				out.writeInt(((Integer) writer.stringIndex.get(it.next())).intValue());
+			}
+			writer.body.writeTo(out);
+		}
+		finally {
+			out.close();
+		}
+		this.file.delete();
+		if (!tempFile.renameTo(this.file)) {
+			tempFile.delete();
+			throw new IOException("Could not rename [" + tempFile + "] to [" + this.file + "]");
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Saved " + beanNames.length + " bean definitions to snapshot [" + this.file + "]");
+		}
+	}
+
+	public String toString() {
+		return "BeanDefinitionSnapshot for file [" + this.file + "]";
+	}
+
+
+	//본문을 쓰면서 문자열 테이블을 모은다
+	private static class Writer {
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private final DataOutputStream out = new DataOutputStream(this.body);
+
+		private final List strings = new ArrayList();
+
+		//String -> Integer index
+		private final Map stringIndex = new HashMap();
+
+		//Class 가 있는 RootBeanDefinition 의 class 이름, 나오는 순서대로
+		private final Set beanClassNames = new LinkedHashSet();
+
+		private void writeString(String value) throws IOException {
+			if (value == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			Integer index = (Integer) this.stringIndex.get(value);
+			if (index == null) {
+				index = Integer.valueOf(this.strings.size());
+				this.strings.add(value);
+				this.stringIndex.put(value, index);
+			}
+			this.out.writeInt(index.intValue());
+		}
+
+		private void writeStrings(String[] values) throws IOException {
+			this.out.writeInt(values != null ? values.length : -1);
+			if (values != null) {
+				for (int i = 0; i < values.length; i++) {
+					writeString(values[i]);
+				}
+			}
+		}
+
+		private void writeValue(Object value) throws IOException {
+			if (value == null) {
+				this.out.writeByte(NULL_VALUE);
+			}
+			else if (value instanceof String) {
+				this.out.writeByte(STRING_VALUE);
+				writeString((String) value);
+			}
+			else if (value instanceof RuntimeBeanReference) {
+				this.out.writeByte(REFERENCE_VALUE);
+				writeString(((RuntimeBeanReference) value).getBeanName());
+			}
+			else if (value instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) value;
+				this.out.writeByte(ROOT_BEAN_DEFINITION);
+				writeString(rbd.getBeanClassName());
+				this.out.writeBoolean(rbd.hasBeanClass());
+				if (rbd.hasBeanClass()) {
+					this.beanClassNames.add(rbd.getBeanClassName());
+				}
+				ConstructorArgumentValues cargs = rbd.getConstructorArgumentValues();
+				this.out.writeBoolean(cargs != null);
+				if (cargs != null) {
+					writeConstructorArgumentValues(cargs);
+				}
+				writeBeanDefinition(rbd);
+				this.out.writeInt(rbd.getAutowireMode());
+				this.out.writeInt(rbd.getDependencyCheck());
+				writeStrings(rbd.getDependsOn());
+				writeString(rbd.getInitMethodName());
+				writeString(rbd.getDestroyMethodName());
+			}
+			else if (value instanceof ChildBeanDefinition) {
+				this.out.writeByte(CHILD_BEAN_DEFINITION);
+				writeString(((ChildBeanDefinition) value).getParentName());
+				writeBeanDefinition((ChildBeanDefinition) value);
+			}
+			else if (value instanceof ManagedList || value instanceof ManagedSet) {
+				this.out.writeByte(value instanceof ManagedList ? LIST_VALUE : SET_VALUE);
+				java.util.Collection collection = (java.util.Collection) value;
+				this.out.writeInt(collection.size());
+				for (Iterator it = collection.iterator(); it.hasNext();) {
+					writeValue(it.next());
+				}
+			}
+			else if (value instanceof ManagedMap) {
+				this.out.writeByte(MAP_VALUE);
+				writeEntries((Map) value);
+			}
+			else if (value instanceof Properties) {
+				this.out.writeByte(PROPERTIES_VALUE);
+				writeEntries((Map) value);
+			}
+			else {
+				throw new IOException("Cannot write value of type [" + value.getClass().getName() + "] to snapshot");
+			}
+		}
+
+		private void writeEntries(Map map) throws IOException {
+			this.out.writeInt(map.size());
+			for (Iterator it = map.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		//AbstractBeanDefinition 공통 속성
+		private void writeBeanDefinition(AbstractBeanDefinition bd) throws IOException {
+			this.out.writeBoolean(bd.isSingleton());
+			this.out.writeBoolean(bd.isLazyInit());
+			this.out.writeInt(bd.getPoolSize());
+			this.out.writeBoolean(bd.isThreadScoped());
+			writeString(bd.getResourceDescription());
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			this.out.writeInt(pvs.length);
+			for (int i = 0; i < pvs.length; i++) {
+				writeString(pvs[i].getName());
+				writeValue(pvs[i].getValue());
+			}
+		}
+
+		private void writeConstructorArgumentValues(ConstructorArgumentValues cargs) throws IOException {
+			Map indexedArgumentValues = cargs.getIndexedArgumentValues();
+			this.out.writeInt(indexedArgumentValues.size());
+			for (Iterator it = indexedArgumentValues.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) entry.getValue();
+				this.out.writeInt(((Integer) entry.getKey()).intValue());
+				writeString(valueHolder.getType());
+				writeValue(valueHolder.getValue());
+			}
+			Set genericArgumentValues = cargs.getGenericArgumentValues();
+			this.out.writeInt(genericArgumentValues.size());
+			for (Iterator it = genericArgumentValues.iterator(); it.hasNext();) {
+				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) it.next();
+				writeString(valueHolder.getType());
+				writeValue(valueHolder.getValue());
+			}
+		}
+	}
+
+
+	private class Reader {
+
+		private final DataInputStream in;
+
+		private final String[] strings;
+
+		private Reader(DataInputStream in, String[] strings) {
+			this.in = in;
+			this.strings = strings;
+		}
+
+		private String readString() throws IOException {
+			int index = this.in.readInt();
+			if (index < -1 || index >= this.strings.length) {
+				throw new IOException("Corrupt definition snapshot: string index " + index);
+			}
+			return (index != -1 ? this.strings[index] : null);
+		}
+
+		private String[] readStrings() throws IOException {
+			int length = this.in.readInt();
+			if (length == -1) {
+				return null;
+			}
+			String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+
+		private Object readValue() throws IOException, ClassNotFoundException {
+			int type = this.in.readByte();
+			switch (type) {
+				case NULL_VALUE:
+					return null;
+				case STRING_VALUE:
+					return readString();
+				case REFERENCE_VALUE:
+					return new RuntimeBeanReference(readString());
+				case ROOT_BEAN_DEFINITION:
+					return readRootBeanDefinition();
+				case CHILD_BEAN_DEFINITION:
+					ChildBeanDefinition cbd = new ChildBeanDefinition(readString(), null);
+					readBeanDefinition(cbd);
+					return cbd;
+				case LIST_VALUE:
+				case SET_VALUE:
+					java.util.Collection collection = (type == LIST_VALUE ? (java.util.Collection) new ManagedList() : new ManagedSet());
+					int size = this.in.readInt();
+					for (int i = 0; i < size; i++) {
+						collection.add(readValue());
+					}
+					return collection;
+				case MAP_VALUE:
+					return readEntries(new ManagedMap());
+				case PROPERTIES_VALUE:
+					return readEntries(new Properties());
+			}
+			throw new IOException("Corrupt definition snapshot: value type " + type);
+		}
+
+		private Map readEntries(Map map) throws IOException, ClassNotFoundException {
+			int size = this.in.readInt();
+			for (int i = 0; i < size; i++) {
+				map.put(readValue(), readValue());
+			}
+			return map;
+		}
+
+		private RootBeanDefinition readRootBeanDefinition() throws IOException, ClassNotFoundException {
+			String className = readString();
+			boolean resolved = this.in.readBoolean();
+			ConstructorArgumentValues cargs = null;
+			if (this.in.readBoolean()) {
+				cargs = new ConstructorArgumentValues();
+				int indexedCount = this.in.readInt();
+				for (int i = 0; i < indexedCount; i++) {
+					int index = this.in.readInt();
+					String type = readString();
+					Object value = readValue();
+					if (type != null) {
+						cargs.addIndexedArgumentValue(index, value, type);
+					}
+					else {
+						cargs.addIndexedArgumentValue(index, value);
+					}
+				}
+				int genericCount = this.in.readInt();
+				for (int i = 0; i < genericCount; i++) {
+					String type = readString();
+					Object value = readValue();
+					if (type != null) {
+						cargs.addGenericArgumentValue(value, type);
+					}
+					else {
+						cargs.addGenericArgumentValue(value);
+					}
+				}
+			}
+			RootBeanDefinition rbd = null;
+			//XmlBeanDefinitionReader 처럼 class loader 가 있으면 Class 로, static initializer 는 처음 쓸때
+			if (resolved && beanClassLoader != null) {
+				rbd = new RootBeanDefinition(Class.forName(className, false, beanClassLoader), cargs, null);
+			}
+			else {
+				rbd = new RootBeanDefinition(className, cargs, null);
+			}
+			readBeanDefinition(rbd);
+			rbd.setAutowireMode(this.in.readInt());
+			rbd.setDependencyCheck(this.in.readInt());
+			rbd.setDependsOn(readStrings());
+			rbd.setInitMethodName(readString());
+			rbd.setDestroyMethodName(readString());
+			return rbd;
+		}
+
+		private void readBeanDefinition(AbstractBeanDefinition bd) throws IOException, ClassNotFoundException {
+			bd.setSingleton(this.in.readBoolean());
+			bd.setLazyInit(this.in.readBoolean());
+			bd.setPoolSize(this.in.readInt());
+			bd.setThreadScoped(this.in.readBoolean());
+			bd.setResourceDescription(readString());
+			MutablePropertyValues pvs = bd.getPropertyValues();
+			int size = this.in.readInt();
+			for (int i = 0; i < size; i++) {
+				String name = readString();
+				pvs.addPropertyValue(new PropertyValue(name, readValue()));
+			}
+		}
+	}
+
+}
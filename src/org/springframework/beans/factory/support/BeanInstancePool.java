@@ -0,0 +1,99 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//pool-size 가 지정된 prototype 빈의 초기화가 끝난 객체를 보관
+//lock 없이 빌리고 돌려줄수 있고, 최대 maxIdle 개 까지만 보관한다
+class BeanInstancePool {
+
+	private final int maxIdle;
+
+	//먼저 돌려받은 객체가 앞에 있다
+	private final ConcurrentLinkedQueue idleEntries = new ConcurrentLinkedQueue();
+
+	//idleEntries.size() 는 O(n) 이라 따로 센다
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private volatile boolean closed = false;
+
+	BeanInstancePool(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	//없으면 null, 새로 만드는건 호출한 쪽에서
+	public Object borrow() {
+		IdleEntry entry = (IdleEntry) this.idleEntries.poll();
+		if (entry == null) {
+			return null;
+		}
+		this.idleCount.decrementAndGet();
+		return entry.instance;
+	}
+
+	//보관할수 없으면 false, 호출한 쪽에서 destroy 해야 한다
+	public boolean release(Object instance) {
+		if (this.closed) {
+			return false;
+		}
+		if (this.idleCount.incrementAndGet() > this.maxIdle) {
+			this.idleCount.decrementAndGet();
+			return false;
+		}
+		IdleEntry entry = new IdleEntry(instance, System.currentTimeMillis());
+		this.idleEntries.offer(entry);
+		//offer 하는 사이에 close 되었으면 다시 꺼내서 호출한 쪽에서 destroy
+		//이미 close 에서 꺼내갔으면 그쪽에서 destroy 된다
+		if (this.closed && this.idleEntries.remove(entry)) {
+			this.idleCount.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	//maxIdleTime 보다 오래 쉬고 있는 객체를 꺼내서 리턴
+	public List evictIdle(long maxIdleTime) {
+		List evicted = new ArrayList();
+		long deadline = System.currentTimeMillis() - maxIdleTime;
+		IdleEntry entry;
+		while ((entry = (IdleEntry) this.idleEntries.peek()) != null && entry.releasedAt < deadline) {
+			if (this.idleEntries.remove(entry)) {
+				this.idleCount.decrementAndGet();
+				evicted.add(entry.instance);
+			}
+		}
+		return evicted;
+	}
+
+	//더 이상 보관하지 않고 남아 있는 객체를 모두 리턴
+	public List close() {
+		this.closed = true;
+		List drained = new ArrayList();
+		IdleEntry entry;
+		while ((entry = (IdleEntry) this.idleEntries.poll()) != null) {
+			this.idleCount.decrementAndGet();
+			drained.add(entry.instance);
+		}
+		return drained;
+	}
+
+	public int getIdleCount() {
+		return this.idleCount.get();
+	}
+
+
+	private static class IdleEntry {
+
+		private final Object instance;
+
+		private final long releasedAt;
+
+		private IdleEntry(Object instance, long releasedAt) {
+			this.instance = instance;
+			this.releasedAt = releasedAt;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//빈 클레스와 모든 상위 클레스, 인터페이스 -> bean name
+//등록할때 상위 타입을 다 넣어두기 때문에 조회는 찾은 개수 만큼만 든다
+class BeanTypeIndex {
+
+	//Class -> Set(bean name), 등록 순서 유지
+	private final Map namesByType = new HashMap();
+
+	//bean name -> 등록된 Class
+	private final Map typeByName = new HashMap();
+
+	public synchronized void register(String beanName, Class beanClass) {
+		Class previousClass = (Class) this.typeByName.put(beanName, beanClass);
+		if (previousClass == beanClass) {
+			return;
+		}
+		if (previousClass != null) {
+			removeFromTypes(beanName, previousClass);
+		}
+		List types = getTypeHierarchy(beanClass);
+		for (int i = 0; i < types.size(); i++) {
+			Set names = (Set) this.namesByType.get(types.get(i));
+			if (names == null) {
+				names = new LinkedHashSet();
+				this.namesByType.put(types.get(i), names);
+			}
+			names.add(beanName);
+		}
+	}
+
+	public synchronized void remove(String beanName) {
+		Class beanClass = (Class) this.typeByName.remove(beanName);
+		if (beanClass != null) {
+			removeFromTypes(beanName, beanClass);
+		}
+	}
+
+	public synchronized boolean contains(String beanName) {
+		return this.typeByName.containsKey(beanName);
+	}
+
+	public synchronized String[] getNames(Class type) {
+		Set names = (Set) this.namesByType.get(type);
+		if (names == null) {
+			return new String[0];
+		}
+		return (String[]) names.toArray(new String[names.size()]);
+	}
+
+	public synchronized void clear() {
+		this.namesByType.clear();
+		this.typeByName.clear();
+	}
+
+	private void removeFromTypes(String beanName, Class beanClass) {
+		List types = getTypeHierarchy(beanClass);
+		for (int i = 0; i < types.size(); i++) {
+			Set names = (Set) this.namesByType.get(types.get(i));
+			if (names != null) {
+				names.remove(beanName);
+				//비어 있는 타입은 제거해서 클레스 참조가 남지 않게
+				if (names.isEmpty()) {
+					this.namesByType.remove(types.get(i));
+				}
+			}
+		}
+	}
+
+	//자기 자신, 상위 클레스, 모든 인터페이스
+	private List getTypeHierarchy(Class beanClass) {
+		Set types = new LinkedHashSet();
+		for (Class clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+			types.add(clazz);
+			addInterfaces(clazz, types);
+		}
+		return new ArrayList(types);
+	}
+
+	private void addInterfaces(Class clazz, Set types) {
+		Class[] interfaces = clazz.getInterfaces();
+		for (int i = 0; i < interfaces.length; i++) {
+			if (types.add(interfaces[i])) {
+				addInterfaces(interfaces[i], types);
+			}
+		}
+	}
+
+}
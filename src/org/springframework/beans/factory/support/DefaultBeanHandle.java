@@ -0,0 +1,50 @@
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanHandle;
+
+//AbstractBeanFactory.getBeanHandle 이 리턴하는 handle
+//instance 는 싱글톤일때만 채워지고 removeSingleton 에서 null 로 지운다
+class DefaultBeanHandle implements BeanHandle {
+
+	private final AbstractBeanFactory beanFactory;
+
+	//getBean 에 넘긴 이름, & 포함
+	private final String name;
+
+	//alias 를 해석한 이름
+	private final String beanName;
+
+	private volatile Object instance;
+
+	DefaultBeanHandle(AbstractBeanFactory beanFactory, String name, String beanName) {
+		this.beanFactory = beanFactory;
+		this.name = name;
+		this.beanName = beanName;
+	}
+
+	public String getBeanName() {
+		return beanName;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	void setInstance(Object instance) {
+		this.instance = instance;
+	}
+
+	public Object get() throws BeansException {
+		Object bean = this.instance;
+		if (bean != null) {
+			return bean;
+		}
+		return this.beanFactory.getBeanForHandle(this);
+	}
+
+	public String toString() {
+		return "BeanHandle for bean '" + this.name + "'";
+	}
+
+}
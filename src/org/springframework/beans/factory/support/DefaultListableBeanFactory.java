@@ -1,13 +1,39 @@
 package org.springframework.beans.factory.support;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.CachedIntrospectionResults;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryUtils;
@@ -16,6 +42,8 @@ import org.springframework.beans.factory.FactoryBeanCircularReferenceException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.util.StringUtils;
 
 
@@ -23,9 +51,38 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	
 	private boolean allowBeanDefinitionOverriding = true;
 	
-	private Map beanDefinitionMap = new HashMap();
+	//여러 쓰레드가 등록하고 getBean 하는 중에도 등록할 수 있게
+	private final ConcurrentHashMap beanDefinitionMap = new ConcurrentHashMap();
 	
-	private List beanDefinitionNames = new ArrayList();
+	//등록 순서, 새 이름 추가만 이 list 로 synchronized
+	private final ArrayList beanDefinitionNames = new ArrayList();
+	
+	//bean name -> 등록 순서
+	private final Map beanDefinitionOrder = new ConcurrentHashMap();
+	
+	//제거된 이름이 있어도 순서가 겹치지 않게 계속 증가, beanDefinitionNames 로 synchronized
+	private int beanDefinitionSequence = 0;
+	
+	//등록은 read lock 으로 동시에, freeze 는 write lock 으로 등록이 끝나길 기다린다
+	private final ReadWriteLock registrationLock = new ReentrantReadWriteLock();
+	
+	//같은 이름의 등록, 제거는 이름의 hash 로 고른 lock 으로 순서대로, 다른 이름은 대부분 동시에
+	private final Object[] registrationStripes = createRegistrationStripes(32);
+	
+	//빈 클레스 타입 -> bean name
+	private final BeanTypeIndex beanDefinitionTypeIndex = new BeanTypeIndex();
+	
+	//타입을 아직 모르는 bean name (ChildBeanDefinition, 클레스 이름만 있는 definition)
+	private final Set unindexedBeanNames = Collections.synchronizedSet(new LinkedHashSet());
+	
+	//freeze 후에는 아래 두개만 읽는다, 위의 map 과 list 는 freeze 에서 비운다
+	private volatile FrozenNameMap frozenBeanDefinitionMap;
+	
+	private volatile String[] frozenBeanDefinitionNames;
+	
+	private boolean parallelPreInstantiation = false;
+	
+	private int preInstantiationThreads = Runtime.getRuntime().availableProcessors();
 	
 	public DefaultListableBeanFactory() {
 		super();
@@ -39,8 +96,68 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
 	}
 	
+	//싱글톤 미리 생성을 의존 관계 순서에 맞춰 여러 쓰레드로 할지 여부
+	public void setParallelPreInstantiation(boolean parallelPreInstantiation) {
+		this.parallelPreInstantiation = parallelPreInstantiation;
+	}
+	
+	public boolean isParallelPreInstantiation() {
+		return parallelPreInstantiation;
+	}
+	
+	public void setPreInstantiationThreads(int preInstantiationThreads) {
+		if (preInstantiationThreads < 1) {
+			throw new IllegalArgumentException("preInstantiationThreads must be at least 1");
+		}
+		this.preInstantiationThreads = preInstantiationThreads;
+	}
+	
+	public int getPreInstantiationThreads() {
+		return preInstantiationThreads;
+	}
+	
+	//definition, alias 를 읽기 전용 배열 구조로 바꾸고 이후 등록은 BeanDefinitionStoreException
+	public void freeze() {
+		this.registrationLock.writeLock().lock();
+		try {
+			if (this.frozenBeanDefinitionMap != null) {
+				return;
+			}
+			//등록된 모든 타입을 미리 index 해둔다
+			indexBeanDefinitionTypes();
+			freezeAliases();
+			String[] beanNames = getBeanDefinitionNames();
+			this.frozenBeanDefinitionNames = beanNames;
+			this.frozenBeanDefinitionMap = new FrozenNameMap(beanNames, this.beanDefinitionMap);
+			//frozen 구조를 만든 뒤에는 읽지 않으니 비워서 메모리를 돌려준다
+			//lock 없이 읽던 쓰레드는 비운 map 에서 못 찾으면 frozen 구조를 다시 본다
+			this.beanDefinitionMap.clear();
+			this.beanDefinitionOrder.clear();
+			synchronized (this.beanDefinitionNames) {
+				this.beanDefinitionNames.clear();
+				this.beanDefinitionNames.trimToSize();
+			}
+		}
+		finally {
+			this.registrationLock.writeLock().unlock();
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Froze " + this.frozenBeanDefinitionNames.length + " bean definitions in factory [" + this + "]");
+		}
+	}
+	
+	public boolean isFrozen() {
+		return (this.frozenBeanDefinitionMap != null);
+	}
+	
 	public int getBeanDefinitionCount() {
-		return this.beanDefinitionMap.size();
+		FrozenNameMap frozenMap = this.frozenBeanDefinitionMap;
+		if (frozenMap != null) {
+			return frozenMap.size();
+		}
+		int count = this.beanDefinitionMap.size();
+		frozenMap = this.frozenBeanDefinitionMap;
+		return (frozenMap != null ? frozenMap.size() : count);
 	}
 	
 	public String[] getBeanDefinitionNames() {
@@ -48,20 +165,69 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 	
 	public String[] getBeanDefinitionNames(Class type) {
-		List matches = new ArrayList();
-		Iterator it = this.beanDefinitionNames.iterator();
-		while (it.hasNext()) {
-			String name = (String) it.next();
-			//null 이거나 definition 에서 객체 찾아서 같은 타입
-			if (type == null || type.isAssignableFrom(getMergedBeanDefinition(name, false).getBeanClass())) {
-				matches.add(name);
+		if (type == null) {
+			String[] frozenNames = this.frozenBeanDefinitionNames;
+			if (frozenNames != null) {
+				return frozenNames.clone();
+			}
+			String[] beanNames;
+			synchronized (this.beanDefinitionNames) {
+				beanNames = (String[]) this.beanDefinitionNames.toArray(new String[this.beanDefinitionNames.size()]);
+			}
+			//그 사이에 freeze 되어 list 가 비워졌을 수 있다
+			frozenNames = this.frozenBeanDefinitionNames;
+			return (frozenNames != null ? (String[]) frozenNames.clone() : beanNames);
+		}
+		indexBeanDefinitionTypes();
+		String[] matches = this.beanDefinitionTypeIndex.getNames(type);
+		//등록 순서로 정렬
+		Arrays.sort(matches, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return getBeanDefinitionOrder((String) o1) - getBeanDefinitionOrder((String) o2);
+			}
+		});
+		return matches;
+	}
+	
+	private int getBeanDefinitionOrder(String beanName) {
+		FrozenNameMap frozenMap = this.frozenBeanDefinitionMap;
+		if (frozenMap == null) {
+			Integer order = (Integer) this.beanDefinitionOrder.get(beanName);
+			if (order != null) {
+				return order.intValue();
+			}
+			frozenMap = this.frozenBeanDefinitionMap;
+		}
+		int order = (frozenMap != null ? frozenMap.indexOf(beanName) : -1);
+		return (order != -1 ? order : Integer.MAX_VALUE);
+	}
+	
+	//타입을 몰랐던 definition 들을 병합해서 타입 인덱스에 추가
+	private void indexBeanDefinitionTypes() {
+		if (this.unindexedBeanNames.isEmpty()) {
+			return;
+		}
+		String[] beanNames = (String[]) this.unindexedBeanNames.toArray(new String[0]);
+		for (int i = 0; i < beanNames.length; i++) {
+			if (containsBeanDefinition(beanNames[i])) {
+				//부모가 없거나 클레스가 없으면 예전 처럼 여기서 예외
+				Class beanClass = getMergedBeanDefinition(beanNames[i], false).getBeanClass();
+				this.beanDefinitionTypeIndex.register(beanNames[i], beanClass);
 			}
+			this.unindexedBeanNames.remove(beanNames[i]);
 		}
-		return (String[]) matches.toArray(new String[matches.size()]);
 	}
 	
 	public boolean containsBeanDefinition(String name) {
-		return this.beanDefinitionMap.containsKey(name);
+		FrozenNameMap frozenMap = this.frozenBeanDefinitionMap;
+		if (frozenMap != null) {
+			return frozenMap.containsKey(name);
+		}
+		if (this.beanDefinitionMap.containsKey(name)) {
+			return true;
+		}
+		frozenMap = this.frozenBeanDefinitionMap;
+		return (frozenMap != null && frozenMap.containsKey(name));
 	}
 	
 	//3곳에서 모든 타입 가져오기
@@ -108,31 +274,333 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return result;
 	}
 	
+	//getBeansOfType(type, true, true) 와 같은 빈을 찾지만 이름만 모은다
+	//FactoryBean 은 getObjectType 을 보기 위해 FactoryBean 만 만들고, 타입을 모를때만 싱글톤 객체를 만든다
+	public String[] getBeanNamesForType(Class type) throws BeansException {
+		Set result = new LinkedHashSet();
+		Set factoryNames = new LinkedHashSet(Arrays.asList(getBeanDefinitionNames(FactoryBean.class)));
+		
+		//FactoryBean definition 은 getBean 이 만든 객체를 돌려주니까 아래에서 따로 본다
+		String[] beanNames = getBeanDefinitionNames(type);
+		for (int i = 0; i < beanNames.length; i++) {
+			if (!factoryNames.contains(beanNames[i])) {
+				result.add(beanNames[i]);
+			}
+		}
+		
+		String[] singletonNames = getSingletonNames(type);
+		for (int i = 0; i < singletonNames.length; i++) {
+			if (!containsBeanDefinition(singletonNames[i])) {
+				result.add(singletonNames[i]);
+			}
+		}
+		
+		Iterator itr = factoryNames.iterator();
+		while (itr.hasNext()) {
+			String factoryName = (String) itr.next();
+			try {
+				FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + factoryName);
+				Class objectType = factory.getObjectType();
+				if (objectType != null ? type.isAssignableFrom(objectType) :
+						(factory.isSingleton() && type.isInstance(getBean(factoryName)))) {
+					result.add(factoryName);
+				}
+			}
+			catch (FactoryBeanCircularReferenceException ex) {
+				logger.debug("Ignoring exception on FactoryBean type check", ex);
+			}
+		}
+		return (String[]) result.toArray(new String[result.size()]);
+	}
+	
 	//객체 생성 안되어 있는거 생성 시키기??
 	public void preInstantiateSingletons() {
 		if (logger.isInfoEnabled()) {
 			logger.info("Pre-instantiating singletons in factory [" + this + "]");
 		}
-		for (Iterator it = this.beanDefinitionNames.iterator(); it.hasNext();) {
-			String beanName = (String) it.next();
-			if (containsBeanDefinition(beanName)) {
-				RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
-				if (bd.isSingleton() && !bd.isLazyInit()) {
-					//FactoryBean 객체이면
-					if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
-						FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
-						if (factory.isSingleton()) {
-							getBean(beanName);
+		if (this.parallelPreInstantiation && this.preInstantiationThreads > 1) {
+			preInstantiateSingletonsInParallel();
+			return;
+		}
+		String[] beanNames = getBeanDefinitionNames();
+		for (int i = 0; i < beanNames.length; i++) {
+			preInstantiateSingleton(beanNames[i]);
+		}
+	}
+	
+	//lazy 아닌 싱글톤 1개 생성
+	protected void preInstantiateSingleton(String beanName) {
+		if (containsBeanDefinition(beanName)) {
+			RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
+			if (bd.isSingleton() && !bd.isLazyInit()) {
+				//FactoryBean 객체이면
+				if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
+					FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
+					if (factory.isSingleton()) {
+						getBean(beanName);
+					}
+				}
+				else {
+					getBean(beanName);
+				}
+			}
+		}
+	}
+	
+	//ref, depends-on, 생성자 인자, autowire 로 DAG 를 만들어서 의존하는 빈이 다 생성된 빈부터 병렬로 생성한다
+	//lazy, prototype 빈을 지나가는 의존도 간선이 된다
+	//다른 쓰레드와 순환 참조가 나서 포기한 빈은 끝나고 직렬로 다시 생성한다
+	private void preInstantiateSingletonsInParallel() {
+		List candidates = new ArrayList();
+		String[] beanDefinitionNames = getBeanDefinitionNames();
+		for (int i = 0; i < beanDefinitionNames.length; i++) {
+			String beanName = beanDefinitionNames[i];
+			RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
+			if (bd.isSingleton() && !bd.isLazyInit()) {
+				candidates.add(beanName);
+			}
+		}
+		String[] beanNames = (String[]) candidates.toArray(new String[candidates.size()]);
+		Map indexByName = new HashMap();
+		for (int i = 0; i < beanNames.length; i++) {
+			indexByName.put(beanNames[i], Integer.valueOf(i));
+		}
+
+		int[] pendingDependencies = new int[beanNames.length];
+		List[] dependents = new List[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			Set dependencies = getPreInstantiationDependencyNames(beanNames[i], indexByName.keySet());
+			for (Iterator it = dependencies.iterator(); it.hasNext();) {
+				Integer dependencyIndex = (Integer) indexByName.get(it.next());
+				if (dependencyIndex != null && dependencyIndex.intValue() != i) {
+					int index = dependencyIndex.intValue();
+					if (dependents[index] == null) {
+						dependents[index] = new ArrayList();
+					}
+					dependents[index].add(Integer.valueOf(i));
+					pendingDependencies[i]++;
+				}
+			}
+		}
+
+		if (logger.isInfoEnabled()) {
+			logger.info("Pre-instantiating " + beanNames.length + " singletons with " + this.preInstantiationThreads +
+					" threads");
+		}
+		boolean[] done = new boolean[beanNames.length];
+		PreInstantiationTask failedTask = null;
+		ExecutorService executor = Executors.newFixedThreadPool(this.preInstantiationThreads, new ThreadFactory() {
+			private int threadCount = 0;
+			public synchronized Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "preInstantiation-" + (++threadCount));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			CompletionService completionService = new ExecutorCompletionService(executor);
+			int running = 0;
+			for (int i = 0; i < beanNames.length; i++) {
+				if (pendingDependencies[i] == 0) {
+					completionService.submit(new PreInstantiationTask(i, beanNames[i]));
+					running++;
+				}
+			}
+			while (running > 0) {
+				PreInstantiationTask task = (PreInstantiationTask) completionService.take().get();
+				running--;
+				if (task.failure != null && isConcurrentCircularReference(task.failure)) {
+					//done 으로 표시하지 않아서 의존하는 빈과 같이 아래에서 직렬로 생성된다
+					if (logger.isDebugEnabled()) {
+						logger.debug("Singleton '" + task.beanName + "' will be pre-instantiated serially: " +
+								task.failure.getMessage());
+					}
+					continue;
+				}
+				done[task.index] = true;
+				if (task.failure != null) {
+					//직렬로 했을때 처럼 definition 순서로 먼저인 빈의 예외를 던진다
+					if (failedTask == null || task.index < failedTask.index) {
+						failedTask = task;
+					}
+				}
+				else if (failedTask == null && dependents[task.index] != null) {
+					for (Iterator it = dependents[task.index].iterator(); it.hasNext();) {
+						int dependent = ((Integer) it.next()).intValue();
+						if (--pendingDependencies[dependent] == 0) {
+							completionService.submit(new PreInstantiationTask(dependent, beanNames[dependent]));
+							running++;
 						}
 					}
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException("Interrupted while pre-instantiating singletons", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new BeanCreationException("Unexpected failure while pre-instantiating singletons", ex.getCause());
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		if (failedTask != null) {
+			if (failedTask.failure instanceof RuntimeException) {
+				throw (RuntimeException) failedTask.failure;
+			}
+			if (failedTask.failure instanceof Error) {
+				throw (Error) failedTask.failure;
+			}
+			throw new BeanCreationException("Pre-instantiation of singleton '" + failedTask.beanName + "' failed",
+					failedTask.failure);
+		}
+
+		//순환 참조 때문에 순서를 못 정했거나 다른 쓰레드와 순환 참조가 난 빈은 직렬로 생성
+		for (int i = 0; i < beanNames.length; i++) {
+			if (!done[i]) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Pre-instantiating singleton '" + beanNames[i] + "' serially: part of a dependency cycle");
+				}
+				preInstantiateSingleton(beanNames[i]);
+			}
+		}
+	}
+	
+	private boolean isConcurrentCircularReference(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof BeanCurrentlyInCreationException) {
+				return true;
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+	
+	//candidate 가 아닌 definition (lazy 싱글톤, prototype) 은 그 의존을 다시 따라가서 candidate 까지 간선을 잇는다
+	private Set getPreInstantiationDependencyNames(String beanName, Set candidateNames) {
+		Set result = new LinkedHashSet();
+		Set visited = new HashSet();
+		visited.add(beanName);
+		LinkedList queue = new LinkedList();
+		queue.add(beanName);
+		while (!queue.isEmpty()) {
+			RootBeanDefinition bd = getMergedBeanDefinition((String) queue.removeFirst(), false);
+			Set dependencies = getDeclaredDependencyNames(bd);
+			collectAutowiredDependencyNames(bd, dependencies);
+			for (Iterator it = dependencies.iterator(); it.hasNext();) {
+				String dependencyName = transformedBeanName((String) it.next());
+				if (!visited.add(dependencyName)) {
+					continue;
+				}
+				if (candidateNames.contains(dependencyName)) {
+					result.add(dependencyName);
+				}
+				else if (containsBeanDefinition(dependencyName)) {
+					queue.add(dependencyName);
+				}
+			}
+		}
+		return result;
+	}
+	
+	//autowire 로 주입될수 있는 빈 이름, 빈은 만들지 않는다
+	//FactoryBean 은 만든 객체 타입을 모르니 byType, constructor 에서는 모두 의존으로 본다
+	private void collectAutowiredDependencyNames(RootBeanDefinition bd, Set result) {
+		if (bd.getAutowireMode() == RootBeanDefinition.AUTOWIRE_NO || !bd.hasBeanClass()) {
+			return;
+		}
+		int autowireMode = bd.getResolvedAutowireMode();
+		List types = new ArrayList();
+		if (autowireMode == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR) {
+			Constructor[] constructors = bd.getBeanClass().getConstructors();
+			for (int i = 0; i < constructors.length; i++) {
+				types.addAll(Arrays.asList(constructors[i].getParameterTypes()));
+			}
+		}
+		else {
+			PropertyDescriptor[] pds;
+			try {
+				pds = Introspector.getBeanInfo(bd.getBeanClass()).getPropertyDescriptors();
+			}
+			catch (IntrospectionException ex) {
+				return;
+			}
+			for (int i = 0; i < pds.length; i++) {
+				if (pds[i].getWriteMethod() != null && !BeanUtils.isSimpleProperty(pds[i].getPropertyType()) &&
+						!bd.getPropertyValues().contains(pds[i].getName())) {
+					if (autowireMode == RootBeanDefinition.AUTOWIRE_BY_NAME) {
+						result.add(pds[i].getName());
+					}
 					else {
-						getBean(beanName);
+						types.add(pds[i].getPropertyType());
 					}
 				}
 			}
 		}
+		if (!types.isEmpty()) {
+			for (Iterator it = types.iterator(); it.hasNext();) {
+				result.addAll(Arrays.asList(getBeanDefinitionNames((Class) it.next())));
+			}
+			result.addAll(Arrays.asList(getBeanDefinitionNames(FactoryBean.class)));
+		}
+	}
+	
+	//definition 에 선언된 의존 빈 이름 (depends-on, ref, 생성자 인자, inner bean 포함)
+	protected Set getDeclaredDependencyNames(RootBeanDefinition bd) {
+		Set result = new LinkedHashSet();
+		collectDeclaredDependencyNames(bd, result);
+		return result;
+	}
+	
+	private void collectDeclaredDependencyNames(BeanDefinition bd, Set result) {
+		if (bd instanceof RootBeanDefinition && ((RootBeanDefinition) bd).getDependsOn() != null) {
+			result.addAll(Arrays.asList(((RootBeanDefinition) bd).getDependsOn()));
+		}
+		PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+		for (int i = 0; i < pvs.length; i++) {
+			collectReferencedBeanNames(pvs[i].getValue(), result);
+		}
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		if (cargs != null) {
+			for (Iterator it = cargs.getIndexedArgumentValues().values().iterator(); it.hasNext();) {
+				collectReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), result);
+			}
+			for (Iterator it = cargs.getGenericArgumentValues().iterator(); it.hasNext();) {
+				collectReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), result);
+			}
+		}
+	}
+	
+	private void collectReferencedBeanNames(Object value, Set result) {
+		if (value instanceof RuntimeBeanReference) {
+			result.add(((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencyNames((BeanDefinition) value, result);
+			//inner bean 의 autowire 도 바깥 빈의 의존
+			if (value instanceof RootBeanDefinition) {
+				collectAutowiredDependencyNames((RootBeanDefinition) value, result);
+			}
+		}
+		else if (value instanceof ManagedList || value instanceof ManagedSet) {
+			for (Iterator it = ((Collection) value).iterator(); it.hasNext();) {
+				collectReferencedBeanNames(it.next(), result);
+			}
+		}
+		else if (value instanceof ManagedMap) {
+			for (Iterator it = ((Map) value).values().iterator(); it.hasNext();) {
+				collectReferencedBeanNames(it.next(), result);
+			}
+		}
 	}
 	
+	//definition 을 덮어쓰면 이전 definition 으로 만든 싱글톤, pool, 쓰레드 scope 객체와
+	//그 빈에 의존하는 싱글톤을 모두 destroy 한다, 다음 getBean 에서 새 definition 으로 생성된다
+	//refreshIncrementally 뿐 아니라 모든 덮어쓰기에 적용된다
 	public void registerBeanDefinition(String name, BeanDefinition beanDefinition)throws BeanDefinitionStoreException {
 		
 		if (beanDefinition instanceof AbstractBeanDefinition) {
@@ -143,61 +611,216 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), name,
 				                                       "Validation of bean definition with name failed", ex);
 			}
+			((AbstractBeanDefinition) beanDefinition).compact();
+		}
+		
+		this.registrationLock.readLock().lock();
+		try {
+			if (this.frozenBeanDefinitionMap != null) {
+				throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), name,
+				                                       "Cannot register bean definition: bean factory is frozen");
+			}
+			
+			//같은 이름을 동시에 등록하면 map 과 타입 인덱스가 서로 다른 definition 을 가리키지 않게 한다
+			synchronized (getRegistrationStripe(name)) {
+				//같은 이름의 definition 이 있는지 확인과 저장을 한번에
+				Object oldBeanDefinition = null;
+				if (this.allowBeanDefinitionOverriding) {
+					//이전 definition 으로 만든 객체는 destroy, 의존하는 싱글톤도 다시 생성되게 한다
+					if (this.beanDefinitionMap.containsKey(name)) {
+						destroyBeanInstances(name);
+					}
+					oldBeanDefinition = this.beanDefinitionMap.put(name, beanDefinition);
+				}
+				else {
+					oldBeanDefinition = this.beanDefinitionMap.putIfAbsent(name, beanDefinition);
+					if (oldBeanDefinition != null) {
+						throw new BeanDefinitionStoreException("Cannot register bean definition [" + beanDefinition + "] for bean '" +
+																									 name + "': there's already [" + oldBeanDefinition + "] bound");
+					}
+				}
+				if (oldBeanDefinition != null) {
+					logger.info("Overriding bean definition for bean '" + name +
+											"': replacing [" + oldBeanDefinition + "] with [" + beanDefinition + "]");
+				}
+				else {
+					//처음 등록한 쓰레드만 이름 저장
+					synchronized (this.beanDefinitionNames) {
+						this.beanDefinitionOrder.put(name, Integer.valueOf(this.beanDefinitionSequence++));
+						this.beanDefinitionNames.add(name);
+					}
+				}
+				
+				if (clearMergedBeanDefinition(name)) {
+					unindexChildBeanDefinitions();
+				}
+				if (oldBeanDefinition != null) {
+					//이전 definition 의 ref, depends-on 으로 기록된 의존 관계는 더 이상 맞지 않다
+					removeDependenciesForBean(name);
+					//destroy 와 put 사이에 다른 쓰레드가 이전 definition 으로 다시 만든 객체
+					destroyBeanInstances(name);
+				}
+				if (beanDefinition instanceof RootBeanDefinition && ((RootBeanDefinition) beanDefinition).getDependsOn() != null) {
+					String[] dependsOn = ((RootBeanDefinition) beanDefinition).getDependsOn();
+					for (int i = 0; i < dependsOn.length; i++) {
+						registerDependentBean(dependsOn[i], name);
+					}
+				}
+				if (beanDefinition instanceof RootBeanDefinition && ((RootBeanDefinition) beanDefinition).hasBeanClass()) {
+					this.beanDefinitionTypeIndex.register(name, ((RootBeanDefinition) beanDefinition).getBeanClass());
+					this.unindexedBeanNames.remove(name);
+				}
+				else {
+					this.beanDefinitionTypeIndex.remove(name);
+					this.unindexedBeanNames.add(name);
+				}
+			}
+		}
+		finally {
+			this.registrationLock.readLock().unlock();
+		}
+	}
+	
+	//freeze 의 write lock 과 겹치지 않게 등록해서 freezeAliases 중에 넣은 alias 가 빠지지 않게 한다
+	public void registerAlias(String beanName, String alias) throws BeanDefinitionStoreException {
+		this.registrationLock.readLock().lock();
+		try {
+			super.registerAlias(beanName, alias);
+		}
+		finally {
+			this.registrationLock.readLock().unlock();
+		}
+	}
+	
+	private static Object[] createRegistrationStripes(int count) {
+		Object[] stripes = new Object[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Object();
+		}
+		return stripes;
+	}
+	
+	private Object getRegistrationStripe(String name) {
+		int h = name.hashCode();
+		return this.registrationStripes[(h ^ (h >>> 16)) & (this.registrationStripes.length - 1)];
+	}
+	
+	//부모가 바뀌었으니 ChildBeanDefinition 타입을 다시 구한다
+	private void unindexChildBeanDefinitions() {
+		String[] beanNames = getBeanDefinitionNames();
+		for (int i = 0; i < beanNames.length; i++) {
+			if (this.beanDefinitionMap.get(beanNames[i]) instanceof ChildBeanDefinition) {
+				this.beanDefinitionTypeIndex.remove(beanNames[i]);
+				this.unindexedBeanNames.add(beanNames[i]);
+			}
+		}
+	}
+	
+	//definition 과 그 빈의 객체, alias, 캐쉬, 인덱스를 모두 제거
+	//싱글톤에 의존하는 빈은 destroy 되고 다음 getBean 에서 다시 생성된다
+	public void removeBeanDefinition(String name) throws BeansException {
+		if (this.frozenBeanDefinitionMap != null) {
+			throw new BeanDefinitionStoreException("Cannot remove bean definition '" + name + "': bean factory is frozen");
 		}
+		if (!this.beanDefinitionMap.containsKey(name)) {
+			throw new NoSuchBeanDefinitionException(name, toString());
+		}
+		//destroy-method 를 찾을 수 있게 definition 을 지우기 전에 destroy
+		removeBeanState(name);
 		
-		Object oldBeanDefinition = this.beanDefinitionMap.get(name);
-		//같은 이름의 defintion이 있으면
-		if (oldBeanDefinition != null) {
-			if (!this.allowBeanDefinitionOverriding) {
-				throw new BeanDefinitionStoreException("Cannot register bean definition [" + beanDefinition + "] for bean '" +
-																							 name + "': there's already [" + oldBeanDefinition + "] bound");
+		BeanDefinition beanDefinition = null;
+		this.registrationLock.readLock().lock();
+		try {
+			if (this.frozenBeanDefinitionMap != null) {
+				throw new BeanDefinitionStoreException("Cannot remove bean definition '" + name + "': bean factory is frozen");
 			}
-			else {
-				logger.info("Overriding bean definition for bean '" + name +
-										"': replacing [" + oldBeanDefinition + "] with [" + beanDefinition + "]");
+			synchronized (getRegistrationStripe(name)) {
+				beanDefinition = (BeanDefinition) this.beanDefinitionMap.remove(name);
+				if (beanDefinition == null) {
+					throw new NoSuchBeanDefinitionException(name, toString());
+				}
+				synchronized (this.beanDefinitionNames) {
+					this.beanDefinitionNames.remove(name);
+				}
+				this.beanDefinitionOrder.remove(name);
+				this.beanDefinitionTypeIndex.remove(name);
+				this.unindexedBeanNames.remove(name);
+				if (clearMergedBeanDefinition(name)) {
+					unindexChildBeanDefinitions();
+				}
 			}
 		}
-		else {
-			//이름 저장
-			this.beanDefinitionNames.add(name);
+		finally {
+			this.registrationLock.readLock().unlock();
+		}
+		
+		//그 사이에 다른 쓰레드가 다시 생성한 싱글톤
+		if (containsSingleton(name)) {
+			removeBeanState(name);
 		}
 		
-		//객체 저장
-		this.beanDefinitionMap.put(name, beanDefinition);
+		//같은 클레스 definition 이 더 없으면 introspection 캐쉬도 비운다
+		if (beanDefinition instanceof RootBeanDefinition && ((RootBeanDefinition) beanDefinition).hasBeanClass()) {
+			Class beanClass = ((RootBeanDefinition) beanDefinition).getBeanClass();
+			if (this.beanDefinitionTypeIndex.getNames(beanClass).length == 0 && this.unindexedBeanNames.isEmpty()) {
+				CachedIntrospectionResults.removeClass(beanClass);
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Removed bean definition '" + name + "' from factory [" + this + "]");
+		}
 	}
 	
 	public BeanDefinition getBeanDefinition(String beanName) throws BeansException {
-		BeanDefinition bd = (BeanDefinition) this.beanDefinitionMap.get(beanName);
+		BeanDefinition bd = findBeanDefinition(beanName);
 		if (bd == null) {
 			throw new NoSuchBeanDefinitionException(beanName, toString());
 		}
 		return bd;
 	}
 	
-	protected String[] getDependingBeanNames(String beanName) throws BeansException {
-		List dependingBeanNames = new ArrayList();
-		String[] beanDefinitionNames = getBeanDefinitionNames();
-		for (int i = 0; i < beanDefinitionNames.length; i++) {
-			if (containsBeanDefinition(beanDefinitionNames[i])) {
-				RootBeanDefinition bd = getMergedBeanDefinition(beanDefinitionNames[i], false);
-				if (bd.getDependsOn() != null) {
-					List dependsOn = Arrays.asList(bd.getDependsOn());
-					if (dependsOn.contains(beanName)) {
-						logger.debug("Found depending bean '" + beanDefinitionNames[i] + "' for bean '" + beanName + "'");
-						dependingBeanNames.add(beanDefinitionNames[i]);
-					}
-				}
-			}
+	protected BeanDefinition findBeanDefinition(String beanName) {
+		FrozenNameMap frozenMap = this.frozenBeanDefinitionMap;
+		if (frozenMap != null) {
+			return (BeanDefinition) frozenMap.get(beanName);
+		}
+		BeanDefinition bd = (BeanDefinition) this.beanDefinitionMap.get(beanName);
+		if (bd == null && (frozenMap = this.frozenBeanDefinitionMap) != null) {
+			return (BeanDefinition) frozenMap.get(beanName);
 		}
-		return (String[]) dependingBeanNames.toArray(new String[dependingBeanNames.size()]);
+		return bd;
 	}
 	
-	//계층 구조이면 부모에서도 빈 찾기
-	protected Map findMatchingBeans(Class requiredType) {
-		return BeanFactoryUtils.beansOfTypeIncludingAncestors(this, requiredType, true, true);
+	//계층 구조이면 부모에서도 빈 이름 찾기
+	protected String[] findMatchingBeanNames(Class requiredType) {
+		return BeanFactoryUtils.beanNamesForTypeIncludingAncestors(this, requiredType);
 	}
 
 
+	private class PreInstantiationTask implements Callable {
+
+		private final int index;
+
+		private final String beanName;
+
+		private Throwable failure;
+
+		private PreInstantiationTask(int index, String beanName) {
+			this.index = index;
+			this.beanName = beanName;
+		}
+
+		public Object call() {
+			try {
+				preInstantiateSingleton(this.beanName);
+			}
+			catch (Throwable ex) {
+				this.failure = ex;
+			}
+			return this;
+		}
+	}
+
 	public String toString() {
 		StringBuffer sb = new StringBuffer(getClass().getName());
 		sb.append(" defining beans [" + StringUtils.arrayToDelimitedString(getBeanDefinitionNames(), ",") + "]");
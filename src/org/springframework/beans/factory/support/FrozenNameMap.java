@@ -0,0 +1,119 @@
+package org.springframework.beans.factory.support;
+
+import java.util.Iterator;
+import java.util.Map;
+
+//freeze 된 factory 에서 쓰는 변경 불가능한 String -> Object 맵
+//배열 두개로 된 open addressing 해쉬, 만든 뒤에는 쓰지 않으므로 lock 없이 읽는다
+class FrozenNameMap {
+
+	private final String[] keys;
+
+	private final Object[] values;
+
+	//orderedKeys 로 만든 경우 key 의 배열 순서, 아니면 null
+	private final int[] positions;
+
+	private final int mask;
+
+	private final int size;
+
+	//null 값은 넣지 않는다
+	FrozenNameMap(Map map) {
+		int capacity = capacityFor(map.size());
+		this.keys = new String[capacity];
+		this.values = new Object[capacity];
+		this.positions = null;
+		this.mask = capacity - 1;
+		int count = 0;
+		for (Iterator it = map.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if (entry.getValue() != null) {
+				put((String) entry.getKey(), entry.getValue(), 0);
+				count++;
+			}
+		}
+		this.size = count;
+	}
+
+	//orderedKeys 순서를 같이 저장해서 indexOf 로 돌려준다, map 에 값이 없는 key 는 넣지 않는다
+	FrozenNameMap(String[] orderedKeys, Map map) {
+		int capacity = capacityFor(orderedKeys.length);
+		this.keys = new String[capacity];
+		this.values = new Object[capacity];
+		this.positions = new int[capacity];
+		this.mask = capacity - 1;
+		int count = 0;
+		for (int i = 0; i < orderedKeys.length; i++) {
+			Object value = map.get(orderedKeys[i]);
+			if (value != null) {
+				put(orderedKeys[i], value, i);
+				count++;
+			}
+		}
+		this.size = count;
+	}
+
+	private void put(String key, Object value, int position) {
+		int index = hash(key) & this.mask;
+		while (this.keys[index] != null) {
+			index = (index + 1) & this.mask;
+		}
+		this.keys[index] = key;
+		this.values[index] = value;
+		if (this.positions != null) {
+			this.positions[index] = position;
+		}
+	}
+
+	public Object get(String key) {
+		int index = hash(key) & this.mask;
+		String candidate;
+		while ((candidate = this.keys[index]) != null) {
+			if (candidate == key || candidate.equals(key)) {
+				return this.values[index];
+			}
+			index = (index + 1) & this.mask;
+		}
+		return null;
+	}
+
+	public boolean containsKey(String key) {
+		return (get(key) != null);
+	}
+
+	//orderedKeys 에서의 위치, 없거나 순서를 저장하지 않았으면 -1
+	public int indexOf(String key) {
+		if (this.positions == null) {
+			return -1;
+		}
+		int index = hash(key) & this.mask;
+		String candidate;
+		while ((candidate = this.keys[index]) != null) {
+			if (candidate == key || candidate.equals(key)) {
+				return this.positions[index];
+			}
+			index = (index + 1) & this.mask;
+		}
+		return -1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	//반 이상 차지 않게
+	private static int capacityFor(int size) {
+		int capacity = 2;
+		while (capacity < size * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.springframework.beans.factory.BeanHandle;
+
+//lazy-init 싱글톤 대신 주입되는 프록시의 InvocationHandler
+//처음 메서드가 호출될때 BeanHandle 로 실제 빈을 가져온다
+//타겟 싱글톤이 destroy 되면 handle 이 비워지므로 다음 호출은 새로 만든 빈으로 간다
+class LazyInitTargetInvocationHandler implements InvocationHandler {
+
+	private final BeanHandle beanHandle;
+
+	//마지막으로 가져온 타겟, equals 에서만 사용
+	private volatile Object target;
+
+	LazyInitTargetInvocationHandler(BeanHandle beanHandle) {
+		this.beanHandle = beanHandle;
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		//equals, hashCode 는 타겟을 만들지 않고 프록시 기준으로
+		if (method.getName().equals("equals") && method.getParameterTypes().length == 1) {
+			return (proxy == args[0] || (this.target != null && this.target == args[0])) ? Boolean.TRUE : Boolean.FALSE;
+		}
+		if (method.getName().equals("hashCode") && method.getParameterTypes().length == 0) {
+			return Integer.valueOf(System.identityHashCode(proxy));
+		}
+		try {
+			return method.invoke(getTarget(), args);
+		} catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+	//싱글톤은 handle 에 캐쉬되어 있어서 getBean 하지 않는다
+	private Object getTarget() {
+		Object target = this.beanHandle.get();
+		this.target = target;
+		return target;
+	}
+
+	public String toString() {
+		return "Lazy-init proxy for bean '" + this.beanHandle.getBeanName() + "'";
+	}
+
+}
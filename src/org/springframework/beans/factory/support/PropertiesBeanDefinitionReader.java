@@ -2,9 +2,11 @@ package org.springframework.beans.factory.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
@@ -103,6 +105,19 @@ public class PropertiesBeanDefinitionReader extends AbstractBeanDefinitionReader
 		}
 		int beanCount = 0;
 
+		//등록하면서 Class.forName 하기 전에 모든 class 를 미리 load
+		List classNames = new ArrayList();
+		for (Iterator it = m.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			String key = (String) entry.getKey();
+			//beanName.class, 프로퍼티 경로가 class 로 끝나는 것은 제외
+			if (key.startsWith(prefix) && key.endsWith(SEPARATOR + CLASS_KEY) && entry.getValue() instanceof String &&
+					key.indexOf(SEPARATOR, prefix.length()) == key.length() - SEPARATOR.length() - CLASS_KEY.length()) {
+				classNames.add(entry.getValue());
+			}
+		}
+		prefetchBeanClasses(classNames);
+
 		Set keys = m.keySet();
 		Iterator itr = keys.iterator();
 		while (itr.hasNext()) {
@@ -201,7 +216,8 @@ public class PropertiesBeanDefinitionReader extends AbstractBeanDefinitionReader
 			AbstractBeanDefinition beanDefinition = null;
 			//className 없으면 class 정보 불러오기
 			if (className != null) {
-				Class clazz = Class.forName(className, true, getBeanClassLoader());
+				//static initializer 는 빈을 처음 생성할때 실행된다
+				Class clazz = Class.forName(className, false, getBeanClassLoader());
 				beanDefinition = new RootBeanDefinition(clazz, pvs);
 			}
 			else {
@@ -26,6 +26,9 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 	private String initMethodName;
 	private String destroyMethodName;
 	
+	//AbstractAutowireCapableBeanFactory 가 채우는 생성 정보 캐쉬, 복사 하지 않는다
+	volatile BeanCreationPlan creationPlan;
+	
 	public RootBeanDefinition(Class beanClass, int autowireMode) {
 		super(null);
 		this.beanClass = beanClass;
@@ -71,6 +74,8 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 		this.constructorArgumentValues = other.constructorArgumentValues;
 		setSingleton(other.isSingleton());
 		setLazyInit(other.isLazyInit());
+		setPoolSize(other.getPoolSize());
+		setThreadScoped(other.isThreadScoped());
 		setDependsOn(other.getDependsOn());
 		setDependencyCheck(other.getDependencyCheck());
 		setAutowireMode(other.getAutowireMode());
@@ -86,6 +91,10 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 		return (constructorArgumentValues != null && !constructorArgumentValues.isEmpty());
 	}
 	
+	public final boolean hasBeanClass() {
+		return (this.beanClass instanceof Class);
+	}
+	
 	public final Class getBeanClass() throws IllegalStateException {
 		if (!(this.beanClass instanceof Class)) {
 			throw new IllegalStateException("Bean definition does not carry a resolved bean class");
@@ -104,6 +113,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 	
 	public void setAutowireMode(int autowireMode) {
 		this.autowireMode = autowireMode;
+		this.creationPlan = null;
 	}
 	
 	public int getAutowireMode() {
@@ -130,6 +140,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 	
 	public void setDependencyCheck(int dependencyCheck) {
 		this.dependencyCheck = dependencyCheck;
+		this.creationPlan = null;
 	}
 	
 	public int getDependencyCheck() {
@@ -146,6 +157,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 	
 	public void setInitMethodName(String initMethodName) {
 		this.initMethodName = initMethodName;
+		this.creationPlan = null;
 	}
 	
 	public String getInitMethodName() {
@@ -160,6 +172,37 @@ public class RootBeanDefinition extends AbstractBeanDefinition{
 		return this.destroyMethodName;
 	}
 	
+	void compact() {
+		super.compact();
+		if (this.beanClass instanceof String) {
+			this.beanClass = ((String) this.beanClass).intern();
+		}
+		if (this.constructorArgumentValues != null) {
+			for (int i = 0; i < this.constructorArgumentValues.getIndexedArgumentBound(); i++) {
+				ConstructorArgumentValues.ValueHolder valueHolder = this.constructorArgumentValues.getIndexedArgumentValue(i);
+				if (valueHolder != null) {
+					valueHolder.setValue(compactValue(valueHolder.getValue()));
+				}
+			}
+			for (int i = 0; i < this.constructorArgumentValues.getGenericArgumentCount(); i++) {
+				ConstructorArgumentValues.ValueHolder valueHolder = this.constructorArgumentValues.getGenericArgumentValueAt(i);
+				valueHolder.setValue(compactValue(valueHolder.getValue()));
+			}
+			this.constructorArgumentValues.compact();
+		}
+		if (this.dependsOn != null) {
+			for (int i = 0; i < this.dependsOn.length; i++) {
+				this.dependsOn[i] = this.dependsOn[i].intern();
+			}
+		}
+		if (this.initMethodName != null) {
+			this.initMethodName = this.initMethodName.intern();
+		}
+		if (this.destroyMethodName != null) {
+			this.destroyMethodName = this.destroyMethodName.intern();
+		}
+	}
+	
 	public void validate() throws BeanDefinitionValidationException {
 		super.validate();
 		if (this.beanClass == null) {
@@ -117,6 +117,27 @@ public class StaticListableBeanFactory implements ListableBeanFactory{
 		return matches;
 	}
 	
+	public String[] getBeanNamesForType(Class type) {
+		List matches = new LinkedList();
+		Iterator itr = this.beans.keySet().iterator();
+		while (itr.hasNext()) {
+			String name = (String) itr.next();
+			Object bean = this.beans.get(name);
+			if (bean instanceof FactoryBean) {
+				FactoryBean factory = (FactoryBean) bean;
+				Class objectType = factory.getObjectType();
+				if (objectType != null ? type.isAssignableFrom(objectType) :
+						(factory.isSingleton() && type.isInstance(getBean(name)))) {
+					matches.add(name);
+				}
+			}
+			else if (type.isInstance(bean)) {
+				matches.add(name);
+			}
+		}
+		return (String[]) matches.toArray(new String[matches.size()]);
+	}
+	
 	public void addBean(String name, Object bean) {
 		this.beans.put(name, bean);
 	}
@@ -71,6 +71,10 @@ public class DefaultXmlBeanDefinitionParser implements XmlBeanDefinitionParser {
 	public static final String PROP_ELEMENT = "prop";
 
 	public static final String LAZY_INIT_ATTRIBUTE = "lazy-init";
+	
+	public static final String POOL_SIZE_ATTRIBUTE = "pool-size";
+	
+	public static final String THREAD_SCOPE_ATTRIBUTE = "thread-scope";
 
 	public static final String DEPENDENCY_CHECK_ATTRIBUTE = "dependency-check";
 	public static final String DEPENDENCY_CHECK_ALL_ATTRIBUTE_VALUE = "all";
@@ -212,7 +216,8 @@ public class DefaultXmlBeanDefinitionParser implements XmlBeanDefinitionParser {
 				RootBeanDefinition rbd = null;
 
 				if (this.beanClassLoader != null) {
-					Class clazz = Class.forName(className, true, this.beanClassLoader);
+					//static initializer 는 빈을 처음 생성할때 실행된다
+					Class clazz = Class.forName(className, false, this.beanClassLoader);
 					rbd = new RootBeanDefinition(clazz, cargs, pvs);
 				}
 				else {
@@ -261,6 +266,22 @@ public class DefaultXmlBeanDefinitionParser implements XmlBeanDefinitionParser {
 			}
 			bd.setLazyInit(TRUE_VALUE.equals(lazyInit));
 
+			if (ele.hasAttribute(THREAD_SCOPE_ATTRIBUTE)) {
+				bd.setThreadScoped(TRUE_VALUE.equals(ele.getAttribute(THREAD_SCOPE_ATTRIBUTE)));
+			}
+
+			//prototype 객체 pool
+			String poolSize = ele.getAttribute(POOL_SIZE_ATTRIBUTE);
+			if (!poolSize.equals("")) {
+				try {
+					bd.setPoolSize(Integer.parseInt(poolSize));
+				}
+				catch (NumberFormatException ex) {
+					throw new BeanDefinitionStoreException(this.resource, beanName,
+																								 "Invalid pool-size value [" + poolSize + "]", ex);
+				}
+			}
+
 			bd.setResourceDescription(this.resource.getDescription());
 
 			return bd;
@@ -375,7 +396,10 @@ public class DefaultXmlBeanDefinitionParser implements XmlBeanDefinitionParser {
 	protected Object parsePropertySubelement(Element ele, String beanName) {
 		//<bean><bean></bean></bean>
 		if (ele.getTagName().equals(BEAN_ELEMENT)) {
-			return parseBeanDefinition(ele, "(inner bean definition)");
+			//inner bean 은 생성할때 prototype 으로 바뀌므로 처음부터 prototype 으로 둔다
+			AbstractBeanDefinition innerBeanDefinition = parseBeanDefinition(ele, "(inner bean definition)");
+			innerBeanDefinition.setSingleton(false);
+			return innerBeanDefinition;
 		}//<bean><ref></ref></bean>
 		else if (ele.getTagName().equals(REF_ELEMENT)) {
 			String beanRef = ele.getAttribute(BEAN_REF_ATTRIBUTE);
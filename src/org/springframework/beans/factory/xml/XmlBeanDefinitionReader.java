@@ -2,6 +2,8 @@ package org.springframework.beans.factory.xml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -16,6 +18,8 @@ import org.springframework.beans.factory.support.AbstractBeanDefinitionReader;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.core.io.Resource;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
@@ -93,11 +97,25 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader{
 	}
 	
 	public void registerBeanDefinitions(Document doc, Resource resource) throws BeansException {
+		prefetchBeanClasses(getBeanClassNames(doc));
 		//xml 파서 생성
 		XmlBeanDefinitionParser parser = (XmlBeanDefinitionParser) BeanUtils.instantiateClass(this.parserClass);
 		parser.registerBeanDefinitions(getBeanFactory(), getBeanClassLoader(), doc, resource);
 	}
 	
+	//inner bean 을 포함한 모든 bean 의 class 속성, 문서 순서
+	private List getBeanClassNames(Document doc) {
+		NodeList nl = doc.getElementsByTagName(DefaultXmlBeanDefinitionParser.BEAN_ELEMENT);
+		List classNames = new ArrayList(nl.getLength());
+		for (int i = 0; i < nl.getLength(); i++) {
+			Element ele = (Element) nl.item(i);
+			if (ele.hasAttribute(DefaultXmlBeanDefinitionParser.CLASS_ATTRIBUTE)) {
+				classNames.add(ele.getAttribute(DefaultXmlBeanDefinitionParser.CLASS_ATTRIBUTE));
+			}
+		}
+		return classNames;
+	}
+	
 	private static class BeansErrorHandler implements ErrorHandler {
 
 		private final static Log logger = LogFactory.getLog(XmlBeanFactory.class);
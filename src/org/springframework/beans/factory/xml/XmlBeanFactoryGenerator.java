@@ -0,0 +1,712 @@
+package org.springframework.beans.factory.xml;
+
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractCompiledBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+//빈 설정 XML 을 읽어서 AbstractCompiledBeanFactory 하위 클레스 java 소스를 만든다
+//생성된 코드는 리플렉션 없이 생성자, setter, init 메서드를 직접 호출한다
+//빌드할때 사용: java XmlBeanFactoryGenerator beans.xml com.example.AppBeanFactory src
+//autowire, pool-size, thread-scope, BeanPostProcessor, BeanFactoryPostProcessor 는 지원하지 않는다
+public class XmlBeanFactoryGenerator {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(this.beanFactory);
+
+	private final List resourceDescriptions = new ArrayList();
+
+	//generate 중에만 사용
+	private String[] beanNames;
+
+	private RootBeanDefinition[] definitions;
+
+	//bean name, alias -> Integer index
+	private Map indexByName;
+
+	//완성된 메서드
+	private StringBuffer methods;
+
+	//작성중인 메서드, inner bean 메서드는 끝난 뒤 methods 에 따로 추가된다
+	private StringBuffer body;
+
+	private int innerBeanCount;
+
+	public void setValidating(boolean validating) {
+		this.reader.setValidating(validating);
+	}
+
+	public void loadBeanDefinitions(Resource resource) throws BeansException {
+		this.reader.loadBeanDefinitions(resource);
+		this.resourceDescriptions.add(resource.getDescription());
+	}
+
+	public void generate(String className, File outputDirectory) throws BeansException, IOException {
+		File file = new File(outputDirectory, className.replace('.', File.separatorChar) + ".java");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(generate(className));
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	public synchronized String generate(String className) throws BeansException {
+		this.beanNames = this.beanFactory.getBeanDefinitionNames();
+		this.definitions = new RootBeanDefinition[this.beanNames.length];
+		this.indexByName = new HashMap();
+		this.methods = new StringBuffer();
+		this.innerBeanCount = 0;
+		for (int i = 0; i < this.beanNames.length; i++) {
+			this.definitions[i] = this.beanFactory.getMergedBeanDefinition(this.beanNames[i], false);
+			checkSupported(this.beanNames[i], this.definitions[i]);
+			this.indexByName.put(this.beanNames[i], Integer.valueOf(i));
+		}
+		Map aliases = new HashMap();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			String[] beanAliases = this.beanFactory.getAliases(this.beanNames[i]);
+			for (int j = 0; j < beanAliases.length; j++) {
+				aliases.put(beanAliases[j], this.beanNames[i]);
+				this.indexByName.put(beanAliases[j], Integer.valueOf(i));
+			}
+		}
+		checkConstructorCycles();
+
+		int lastDot = className.lastIndexOf('.');
+		String packageName = (lastDot != -1 ? className.substring(0, lastDot) : null);
+		String simpleName = className.substring(lastDot + 1);
+
+		StringBuffer fields = new StringBuffer();
+		StringBuffer createCases = new StringBuffer();
+		StringBuffer destroyCases = new StringBuffer();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			RootBeanDefinition bd = this.definitions[i];
+			String typeName = typeName(bd.getBeanClass());
+			if (bd.isSingleton()) {
+				fields.append("\tprivate ").append(typeName).append(" singleton").append(i).append(";\n\n");
+				createCases.append("\t\t\tcase ").append(i).append(":\n\t\t\t\treturn getSingleton").append(i).append("();\n");
+				generateSingletonGetter(i);
+			}
+			else {
+				createCases.append("\t\t\tcase ").append(i).append(":\n\t\t\t\treturn createPrototype").append(i).append("();\n");
+				generateCreateMethod("createPrototype" + i, this.beanNames[i], bd);
+			}
+			if (bd.getDestroyMethodName() != null) {
+				findNoArgMethod(this.beanNames[i], bd.getBeanClass(), bd.getDestroyMethodName());
+				destroyCases.append("\t\t\tcase ").append(i).append(":\n\t\t\t\t((").append(typeName).append(") bean).")
+						.append(bd.getDestroyMethodName()).append("();\n\t\t\t\tbreak;\n");
+			}
+		}
+
+		StringBuffer sb = new StringBuffer();
+		if (packageName != null) {
+			sb.append("package ").append(packageName).append(";\n\n");
+		}
+		sb.append("import org.springframework.beans.BeansException;\n");
+		sb.append("import org.springframework.beans.factory.BeanCreationException;\n");
+		sb.append("import org.springframework.beans.factory.support.AbstractCompiledBeanFactory;\n\n");
+		sb.append("//XmlBeanFactoryGenerator 가 ").append(this.resourceDescriptions).append(" 에서 생성, 직접 수정하지 않는다\n");
+		sb.append("public class ").append(simpleName).append(" extends AbstractCompiledBeanFactory {\n\n");
+
+		sb.append("\tprivate static final String[] BEAN_NAMES = new String[] {");
+		for (int i = 0; i < this.beanNames.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(literal(this.beanNames[i]));
+		}
+		sb.append("};\n\n\tprivate static final Class[] BEAN_TYPES = new Class[] {");
+		for (int i = 0; i < this.beanNames.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(typeName(this.definitions[i].getBeanClass())).append(".class");
+		}
+		sb.append("};\n\n\tprivate static final boolean[] SINGLETONS = new boolean[] {");
+		for (int i = 0; i < this.beanNames.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(this.definitions[i].isSingleton());
+		}
+		sb.append("};\n\n");
+		sb.append(fields);
+
+		//생성자, lazy 아닌 싱글톤을 의존 순서로 생성
+		sb.append("\tpublic ").append(simpleName).append("() throws BeansException {\n");
+		sb.append("\t\tsuper(BEAN_NAMES, BEAN_TYPES, SINGLETONS);\n");
+		for (Iterator it = aliases.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			sb.append("\t\tregisterAlias(").append(literal((String) entry.getValue())).append(", ")
+					.append(literal((String) entry.getKey())).append(");\n");
+		}
+		sb.append("\t\ttry {\n");
+		List creationOrder = getCreationOrder();
+		for (int i = 0; i < creationOrder.size(); i++) {
+			sb.append("\t\t\tgetSingleton").append(creationOrder.get(i)).append("();\n");
+		}
+		sb.append("\t\t}\n\t\tcatch (BeansException ex) {\n\t\t\tthrow ex;\n\t\t}\n");
+		sb.append("\t\tcatch (Exception ex) {\n\t\t\tthrow new BeanCreationException(\"Compiled singleton creation failed\", ex);\n\t\t}\n");
+		sb.append("\t}\n\n");
+
+		sb.append("\tprotected Object createBean(int index) throws Exception {\n\t\tswitch (index) {\n");
+		sb.append(createCases);
+		sb.append("\t\t}\n\t\tthrow new IllegalArgumentException(\"No bean with index \" + index);\n\t}\n\n");
+		if (destroyCases.length() > 0) {
+			sb.append("\tprotected void destroyBean(int index, Object bean) throws Exception {\n\t\tswitch (index) {\n");
+			sb.append(destroyCases);
+			sb.append("\t\t}\n\t}\n\n");
+		}
+		sb.append(this.methods);
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private void checkSupported(String beanName, RootBeanDefinition bd) {
+		String reason = null;
+		if (!bd.hasBeanClass()) {
+			reason = "bean class is not resolved";
+		}
+		else if (bd.getAutowireMode() != RootBeanDefinition.AUTOWIRE_NO) {
+			reason = "autowiring is not supported";
+		}
+		else if (bd.isPooled() || bd.isThreadScoped()) {
+			reason = "pooled and thread-scoped beans are not supported";
+		}
+		else if (BeanPostProcessor.class.isAssignableFrom(bd.getBeanClass()) ||
+				BeanFactoryPostProcessor.class.isAssignableFrom(bd.getBeanClass())) {
+			reason = "post-processors are not supported";
+		}
+		else if (!Modifier.isPublic(bd.getBeanClass().getModifiers())) {
+			reason = "bean class is not public";
+		}
+		if (reason != null) {
+			throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName, "Cannot compile bean: " + reason);
+		}
+	}
+
+	private void generateSingletonGetter(int index) {
+		RootBeanDefinition bd = this.definitions[index];
+		String typeName = typeName(bd.getBeanClass());
+		StringBuffer outer = this.body;
+		StringBuffer sb = new StringBuffer();
+		this.body = sb;
+		//빈 마다 lock 을 따로 잡는다, 필드는 lock 안에서만 읽는다
+		sb.append("\tprivate ").append(typeName).append(" getSingleton").append(index).append("() throws Exception {\n");
+		sb.append("\t\tlockSingleton(").append(index).append(");\n\t\ttry {\n");
+		sb.append("\t\t\tif (this.singleton").append(index).append(" == null) {\n");
+		appendDependsOn(bd, "\t\t\t\t");
+		sb.append("\t\t\t\t").append(typeName).append(" bean = ").append(instantiationExpression(this.beanNames[index], bd)).append(";\n");
+		//순환 참조는 초기화 전의 객체를 받는다, 초기화가 실패하면 다음 getBean 이 다시 생성하도록 비운다
+		sb.append("\t\t\t\tthis.singleton").append(index).append(" = bean;\n");
+		sb.append("\t\t\t\tboolean initialized = false;\n\t\t\t\ttry {\n");
+		appendInitialization(this.beanNames[index], bd, "\t\t\t\t\t");
+		sb.append("\t\t\t\t\tinitialized = true;\n\t\t\t\t}\n");
+		sb.append("\t\t\t\tfinally {\n\t\t\t\t\tif (!initialized) {\n");
+		sb.append("\t\t\t\t\t\tthis.singleton").append(index).append(" = null;\n\t\t\t\t\t}\n\t\t\t\t}\n");
+		sb.append("\t\t\t\tregisterSingleton(").append(literal(this.beanNames[index])).append(", bean);\n");
+		sb.append("\t\t\t}\n\t\t\treturn this.singleton").append(index).append(";\n");
+		sb.append("\t\t}\n\t\tfinally {\n\t\t\tunlockSingleton(").append(index).append(");\n\t\t}\n\t}\n\n");
+		this.methods.append(sb);
+		this.body = outer;
+	}
+
+	private void generateCreateMethod(String methodName, String beanName, RootBeanDefinition bd) {
+		String typeName = typeName(bd.getBeanClass());
+		StringBuffer outer = this.body;
+		this.body = new StringBuffer();
+		this.body.append("\tprivate ").append(typeName).append(" ").append(methodName).append("() throws Exception {\n");
+		appendDependsOn(bd, "\t\t");
+		this.body.append("\t\t").append(typeName).append(" bean = ").append(instantiationExpression(beanName, bd)).append(";\n");
+		appendInitialization(beanName, bd, "\t\t");
+		this.body.append("\t\treturn bean;\n\t}\n\n");
+		this.methods.append(this.body);
+		this.body = outer;
+	}
+
+	private void appendDependsOn(RootBeanDefinition bd, String indent) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (int i = 0; i < dependsOn.length; i++) {
+				this.body.append(indent).append("getBean(").append(literal(dependsOn[i])).append(");\n");
+			}
+		}
+	}
+
+	private String instantiationExpression(String beanName, RootBeanDefinition bd) {
+		Class beanClass = bd.getBeanClass();
+		if (!bd.hasConstructorArgumentValues()) {
+			try {
+				beanClass.getConstructor(new Class[0]);
+			}
+			catch (NoSuchMethodException ex) {
+				throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+						"Cannot compile bean: no public default constructor");
+			}
+			return "new " + typeName(beanClass) + "()";
+		}
+		ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+		Constructor[] constructors = beanClass.getConstructors();
+		//Spring 처럼 파라미터가 많은 생성자 부터
+		Arrays.sort(constructors, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return ((Constructor) o2).getParameterTypes().length - ((Constructor) o1).getParameterTypes().length;
+			}
+		});
+		for (int i = 0; i < constructors.length; i++) {
+			Class[] paramTypes = constructors[i].getParameterTypes();
+			if (paramTypes.length != cargs.getNrOfArguments()) {
+				continue;
+			}
+			Object[] args = matchConstructorArguments(cargs, paramTypes);
+			if (args != null) {
+				StringBuffer sb = new StringBuffer("new ").append(typeName(beanClass)).append("(");
+				for (int j = 0; j < args.length; j++) {
+					sb.append(j > 0 ? ", " : "").append(valueExpression(beanName, args[j], paramTypes[j]));
+				}
+				return sb.append(")").toString();
+			}
+		}
+		throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+				"Cannot compile bean: no constructor matches " + cargs.getNrOfArguments() + " constructor arguments");
+	}
+
+	//생성자 파라미터 별 설정 값, 맞지 않으면 null
+	private Object[] matchConstructorArguments(ConstructorArgumentValues cargs, Class[] paramTypes) {
+		Object[] args = new Object[paramTypes.length];
+		List unusedGenericValues = new ArrayList(cargs.getGenericArgumentValues());
+		for (int i = 0; i < paramTypes.length; i++) {
+			ConstructorArgumentValues.ValueHolder valueHolder = cargs.getIndexedArgumentValue(i, paramTypes[i]);
+			if (valueHolder == null) {
+				for (Iterator it = unusedGenericValues.iterator(); it.hasNext();) {
+					ConstructorArgumentValues.ValueHolder candidate = (ConstructorArgumentValues.ValueHolder) it.next();
+					if (candidate.getType() != null ? candidate.getType().equals(paramTypes[i].getName()) :
+							isAssignableValue(candidate.getValue(), paramTypes[i])) {
+						valueHolder = candidate;
+						it.remove();
+						break;
+					}
+				}
+			}
+			if (valueHolder == null) {
+				return null;
+			}
+			args[i] = valueHolder.getValue();
+		}
+		return args;
+	}
+
+	//generic 생성자 인자는 변환 없이 들어갈 수 있는 값만 맞는 것으로 본다
+	private boolean isAssignableValue(Object value, Class paramType) {
+		if (value == null) {
+			return !paramType.isPrimitive();
+		}
+		if (value instanceof RuntimeBeanReference) {
+			Integer index = (Integer) this.indexByName.get(((RuntimeBeanReference) value).getBeanName());
+			if (index == null || FactoryBean.class.isAssignableFrom(this.definitions[index.intValue()].getBeanClass())) {
+				return !paramType.isPrimitive();
+			}
+			return paramType.isAssignableFrom(this.definitions[index.intValue()].getBeanClass());
+		}
+		if (value instanceof RootBeanDefinition) {
+			return paramType.isAssignableFrom(((RootBeanDefinition) value).getBeanClass());
+		}
+		if (value instanceof List) {
+			return paramType.isAssignableFrom(ArrayList.class) || paramType.isArray();
+		}
+		if (value instanceof Set) {
+			return paramType.isAssignableFrom(HashSet.class);
+		}
+		if (value instanceof Map) {
+			return paramType.isAssignableFrom(value instanceof Properties ? Properties.class : HashMap.class);
+		}
+		return paramType.isInstance(value);
+	}
+
+	//프로퍼티 설정, aware, init 메서드
+	private void appendInitialization(String beanName, RootBeanDefinition bd, String indent) {
+		Class beanClass = bd.getBeanClass();
+		BeanWrapperImpl bw = new BeanWrapperImpl(beanClass);
+		PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+		for (int i = 0; i < pvs.length; i++) {
+			PropertyDescriptor pd = null;
+			try {
+				pd = bw.getPropertyDescriptor(pvs[i].getName());
+			}
+			catch (BeansException ex) {
+				// nested 프로퍼티도 여기로 온다
+			}
+			if (pd == null || pd.getWriteMethod() == null) {
+				throw new BeanDefinitionStoreException(bd.getResourceDescription(), beanName,
+						"Cannot compile bean: property '" + pvs[i].getName() + "' is not writable");
+			}
+			String valueExpression = valueExpression(beanName, pvs[i].getValue(), pd.getPropertyType());
+			this.body.append(indent).append("bean.").append(pd.getWriteMethod().getName()).append("(")
+					.append(valueExpression).append(");\n");
+		}
+		if (BeanNameAware.class.isAssignableFrom(beanClass)) {
+			this.body.append(indent).append("bean.setBeanName(").append(literal(beanName)).append(");\n");
+		}
+		if (BeanFactoryAware.class.isAssignableFrom(beanClass)) {
+			this.body.append(indent).append("bean.setBeanFactory(this);\n");
+		}
+		if (InitializingBean.class.isAssignableFrom(beanClass)) {
+			this.body.append(indent).append("bean.afterPropertiesSet();\n");
+		}
+		if (bd.getInitMethodName() != null) {
+			findNoArgMethod(beanName, beanClass, bd.getInitMethodName());
+			this.body.append(indent).append("bean.").append(bd.getInitMethodName()).append("();\n");
+		}
+	}
+
+	private void findNoArgMethod(String beanName, Class beanClass, String methodName) {
+		try {
+			beanClass.getMethod(methodName, new Class[0]);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new BeanDefinitionStoreException(beanClass.getName(), beanName,
+					"Cannot compile bean: no public no-arg method '" + methodName + "'");
+		}
+	}
+
+	//설정 값을 requiredType 의 java 표현식으로
+	private String valueExpression(String beanName, Object value, Class requiredType) {
+		if (value == null) {
+			if (requiredType.isPrimitive()) {
+				throw new BeanDefinitionStoreException(toString(), beanName, "Cannot compile null value for primitive type");
+			}
+			return "null";
+		}
+		if (value instanceof String) {
+			return stringValueExpression(beanName, (String) value, requiredType);
+		}
+		if (value instanceof RuntimeBeanReference) {
+			return referenceExpression(beanName, ((RuntimeBeanReference) value).getBeanName(), requiredType);
+		}
+		if (value instanceof RootBeanDefinition) {
+			RootBeanDefinition innerBd = (RootBeanDefinition) value;
+			String innerBeanName = "(inner bean for property '" + beanName + "')";
+			checkSupported(innerBeanName, innerBd);
+			String methodName = "createInnerBean" + (this.innerBeanCount++);
+			generateCreateMethod(methodName, innerBeanName, innerBd);
+			return adapt(methodName + "()", innerBd.getBeanClass(), requiredType);
+		}
+		if (value instanceof ManagedList) {
+			return adapt("list(" + elementsExpression(beanName, (List) value) + ")", List.class, requiredType);
+		}
+		if (value instanceof ManagedSet) {
+			return adapt("set(" + elementsExpression(beanName, new ArrayList((Set) value)) + ")", Set.class, requiredType);
+		}
+		if (value instanceof ManagedMap) {
+			List keysAndValues = new ArrayList();
+			for (Iterator it = ((Map) value).entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				keysAndValues.add(entry.getKey());
+				keysAndValues.add(entry.getValue());
+			}
+			return adapt("map(" + elementsExpression(beanName, keysAndValues) + ")", Map.class, requiredType);
+		}
+		if (value instanceof Properties) {
+			StringBuffer sb = new StringBuffer("properties(new String[] {");
+			boolean first = true;
+			for (Iterator it = ((Properties) value).entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				sb.append(first ? "" : ", ").append(literal((String) entry.getKey())).append(", ")
+						.append(literal((String) entry.getValue()));
+				first = false;
+			}
+			return adapt(sb.append("})").toString(), Properties.class, requiredType);
+		}
+		throw new BeanDefinitionStoreException(toString(), beanName,
+				"Cannot compile value of type [" + value.getClass().getName() + "]");
+	}
+
+	private String elementsExpression(String beanName, List elements) {
+		StringBuffer sb = new StringBuffer("new Object[] {");
+		for (int i = 0; i < elements.size(); i++) {
+			sb.append(i > 0 ? ", " : "").append(valueExpression(beanName, elements.get(i), Object.class));
+		}
+		return sb.append("}").toString();
+	}
+
+	//기본 타입은 지금 변환해서 상수로 넣는다
+	private String stringValueExpression(String beanName, String value, Class requiredType) {
+		if (requiredType.isAssignableFrom(String.class)) {
+			return literal(value);
+		}
+		Class wrapperType = (requiredType.isPrimitive() ? getWrapperType(requiredType) : requiredType);
+		if (wrapperType != null && (Number.class.isAssignableFrom(wrapperType) || wrapperType == Boolean.class ||
+				wrapperType == Character.class) && wrapperType.getName().startsWith("java.lang.")) {
+			Object converted = null;
+			try {
+				converted = new BeanWrapperImpl().doTypeConversionIfNecessary(value, requiredType);
+			}
+			catch (BeansException ex) {
+				throw new BeanDefinitionStoreException(toString(), beanName,
+						"Cannot convert value '" + value + "' to " + requiredType.getName(), ex);
+			}
+			String literal = primitiveLiteral(converted);
+			if (literal != null) {
+				return (requiredType.isPrimitive() ? literal : "new " + wrapperType.getName() + "(" + literal + ")");
+			}
+		}
+		return adapt(literal(value), String.class, requiredType);
+	}
+
+	private String primitiveLiteral(Object value) {
+		if (value instanceof Integer || value instanceof Boolean) {
+			return value.toString();
+		}
+		if (value instanceof Long) {
+			return value + "L";
+		}
+		if (value instanceof Short) {
+			return "(short) " + value;
+		}
+		if (value instanceof Byte) {
+			return "(byte) " + value;
+		}
+		if (value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite()) {
+			return value + "d";
+		}
+		if (value instanceof Float && !((Float) value).isNaN() && !((Float) value).isInfinite()) {
+			return value + "f";
+		}
+		if (value instanceof Character) {
+			String literal = literal(value.toString());
+			return "'" + (literal.equals("\"'\"") ? "\\'" : literal.substring(1, literal.length() - 1)) + "'";
+		}
+		return null;
+	}
+
+	private String referenceExpression(String beanName, String refName, Class requiredType) {
+		Integer index = (Integer) this.indexByName.get(refName);
+		if (index != null) {
+			RootBeanDefinition bd = this.definitions[index.intValue()];
+			//FactoryBean 은 getBean 에서 만든 객체를 받는다
+			if (!FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
+				if (!requiredType.isAssignableFrom(bd.getBeanClass()) && !bd.getBeanClass().isAssignableFrom(requiredType)) {
+					throw new BeanDefinitionStoreException(toString(), beanName, "Cannot compile reference to bean '" + refName +
+							"' of type [" + bd.getBeanClass().getName() + "] for required type [" + requiredType.getName() + "]");
+				}
+				String methodName = (bd.isSingleton() ? "getSingleton" : "createPrototype") + index;
+				return adapt(methodName + "()", bd.getBeanClass(), requiredType);
+			}
+		}
+		return adapt("getBean(" + literal(refName) + ")", Object.class, requiredType);
+	}
+
+	//exprType 의 표현식을 requiredType 에 넣을 수 있게 cast 나 변환
+	private String adapt(String expression, Class exprType, Class requiredType) {
+		if (requiredType.isAssignableFrom(exprType)) {
+			return expression;
+		}
+		if (!requiredType.isPrimitive() && exprType.isAssignableFrom(requiredType)) {
+			return "((" + typeName(requiredType) + ") " + expression + ")";
+		}
+		if (requiredType.isPrimitive()) {
+			String wrapperName = getWrapperType(requiredType).getName();
+			return "((" + wrapperName + ") convert(" + expression + ", " + wrapperName + ".class))." +
+					requiredType.getName() + "Value()";
+		}
+		return "((" + typeName(requiredType) + ") convert(" + expression + ", " + typeName(requiredType) + ".class))";
+	}
+
+	private static Class getWrapperType(Class primitiveType) {
+		Class[] primitives = {boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class};
+		Class[] wrappers = {Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class};
+		for (int i = 0; i < primitives.length; i++) {
+			if (primitives[i] == primitiveType) {
+				return wrappers[i];
+			}
+		}
+		return null;
+	}
+
+	//lazy 아닌 싱글톤을 참조하는 빈 보다 먼저 오게 정렬
+	private List getCreationOrder() {
+		List order = new ArrayList();
+		Set visited = new HashSet();
+		for (int i = 0; i < this.beanNames.length; i++) {
+			if (this.definitions[i].isSingleton() && !this.definitions[i].isLazyInit()) {
+				visitForCreationOrder(i, visited, order);
+			}
+		}
+		return order;
+	}
+
+	private void visitForCreationOrder(int index, Set visited, List order) {
+		if (!visited.add(Integer.valueOf(index))) {
+			return;
+		}
+		Set references = new LinkedHashSet();
+		collectReferences(this.definitions[index], true, references);
+		for (Iterator it = references.iterator(); it.hasNext();) {
+			Integer refIndex = (Integer) this.indexByName.get(it.next());
+			if (refIndex != null && this.definitions[refIndex.intValue()].isSingleton()) {
+				visitForCreationOrder(refIndex.intValue(), visited, order);
+			}
+		}
+		order.add(Integer.valueOf(index));
+	}
+
+	//생성자 인자로 서로 참조하는 싱글톤은 생성된 코드에서 끝없이 재귀 호출된다
+	private void checkConstructorCycles() {
+		int[] states = new int[this.beanNames.length];
+		for (int i = 0; i < this.beanNames.length; i++) {
+			if (this.definitions[i].isSingleton()) {
+				checkConstructorCycles(i, states, new ArrayList());
+			}
+		}
+	}
+
+	private void checkConstructorCycles(int index, int[] states, List path) {
+		if (states[index] == 2) {
+			return;
+		}
+		path.add(this.beanNames[index]);
+		if (states[index] == 1) {
+			throw new BeanDefinitionStoreException(this.definitions[index].getResourceDescription(), this.beanNames[index],
+					"Cannot compile circular constructor references " + path);
+		}
+		states[index] = 1;
+		Set references = new LinkedHashSet();
+		collectReferences(this.definitions[index], false, references);
+		for (Iterator it = references.iterator(); it.hasNext();) {
+			Integer refIndex = (Integer) this.indexByName.get(it.next());
+			if (refIndex != null && this.definitions[refIndex.intValue()].isSingleton()) {
+				checkConstructorCycles(refIndex.intValue(), states, path);
+			}
+		}
+		states[index] = 2;
+		path.remove(path.size() - 1);
+	}
+
+	//definition 이 참조하는 bean name, includeProperties 가 false 면 생성자 인자만
+	private void collectReferences(RootBeanDefinition bd, boolean includeProperties, Set references) {
+		if (includeProperties && bd.getDependsOn() != null) {
+			references.addAll(Arrays.asList(bd.getDependsOn()));
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			for (Iterator it = cargs.getIndexedArgumentValues().values().iterator(); it.hasNext();) {
+				collectReferences(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), includeProperties, references);
+			}
+			for (Iterator it = cargs.getGenericArgumentValues().iterator(); it.hasNext();) {
+				collectReferences(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), includeProperties, references);
+			}
+		}
+		if (includeProperties) {
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			for (int i = 0; i < pvs.length; i++) {
+				collectReferences(pvs[i].getValue(), includeProperties, references);
+			}
+		}
+	}
+
+	private void collectReferences(Object value, boolean includeProperties, Set references) {
+		if (value instanceof RuntimeBeanReference) {
+			references.add(((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof RootBeanDefinition) {
+			//inner bean 은 바로 생성되므로 프로퍼티 참조도 생성자 참조가 된다
+			collectReferences((RootBeanDefinition) value, true, references);
+		}
+		else if (value instanceof List || value instanceof Set) {
+			for (Iterator it = ((java.util.Collection) value).iterator(); it.hasNext();) {
+				collectReferences(it.next(), includeProperties, references);
+			}
+		}
+		else if (value instanceof ManagedMap) {
+			for (Iterator it = ((Map) value).values().iterator(); it.hasNext();) {
+				collectReferences(it.next(), includeProperties, references);
+			}
+		}
+	}
+
+	private static String typeName(Class clazz) {
+		if (clazz.isArray()) {
+			return typeName(clazz.getComponentType()) + "[]";
+		}
+		return clazz.getName().replace('$', '.');
+	}
+
+	private static String literal(String value) {
+		StringBuffer sb = new StringBuffer("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			}
+			else if (c == '\n') {
+				sb.append("\\n");
+			}
+			else if (c == '\r') {
+				sb.append("\\r");
+			}
+			else if (c == '\t') {
+				sb.append("\\t");
+			}
+			else if (c < 0x20 || c > 0x7e) {
+				String hex = Integer.toHexString(c);
+				sb.append("\\u");
+				for (int j = hex.length(); j < 4; j++) {
+					sb.append('0');
+				}
+				sb.append(hex);
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	public String toString() {
+		return "XmlBeanFactoryGenerator for " + this.resourceDescriptions;
+	}
+
+	//args: XML 파일..., 생성할 클레스 이름, 출력 디렉토리
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: XmlBeanFactoryGenerator <bean xml>... <class name> <output directory>");
+			System.exit(1);
+		}
+		XmlBeanFactoryGenerator generator = new XmlBeanFactoryGenerator();
+		for (int i = 0; i < args.length - 2; i++) {
+			generator.loadBeanDefinitions(new FileSystemResource(args[i]));
+		}
+		generator.generate(args[args.length - 2], new File(args[args.length - 1]));
+	}
+
+}
@@ -53,6 +53,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 	
 	private final ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticasterImpl();
 	
+	//null 이 아니면 refresh 단계와 빈 생성 시간 기록
+	private StartupProfiler startupProfiler;
+	
+	private boolean freezeOnRefresh = false;
+	
 	public AbstractApplicationContext() {
 	}
 	
@@ -100,44 +105,98 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 		return beanFactoryPostProcessors;
 	}
 	
+	public void setStartupProfiler(StartupProfiler startupProfiler) {
+		this.startupProfiler = startupProfiler;
+	}
+	
+	public StartupProfiler getStartupProfiler() {
+		return startupProfiler;
+	}
+	
+	//refresh 끝에 bean factory 를 freeze 할지 여부
+	public void setFreezeOnRefresh(boolean freezeOnRefresh) {
+		this.freezeOnRefresh = freezeOnRefresh;
+	}
+	
+	public boolean isFreezeOnRefresh() {
+		return freezeOnRefresh;
+	}
+	
+	private void startupPhase(String phaseName) {
+		if (this.startupProfiler != null) {
+			this.startupProfiler.startPhase(phaseName);
+		}
+	}
+	
 	public void refresh() throws BeansException {
 		this.startupTime = System.currentTimeMillis();
+		//profiler 를 등록한 bean factory, refresh 가 끝나면 실패해도 listener 를 뺀다
+		ConfigurableListableBeanFactory profiledBeanFactory = null;
 		
-		//하위클레스에서 구현
-		refreshBeanFactory();
-		ConfigurableListableBeanFactory beanFactory = getBeanFactory();
-
-		beanFactory.registerCustomEditor(Resource.class, new ContextResourceEditor(this));
-		beanFactory.addBeanPostProcessor(new ApplicationContextAwareProcessor(this));
-		beanFactory.ignoreDependencyType(ResourceLoader.class);
-		beanFactory.ignoreDependencyType(ApplicationContext.class);
-		postProcessBeanFactory(beanFactory);
-
-		for (Iterator it = getBeanFactoryPostProcessors().iterator(); it.hasNext();) {
-			BeanFactoryPostProcessor factoryProcessor = (BeanFactoryPostProcessor) it.next();
-			factoryProcessor.postProcessBeanFactory(beanFactory);
-		}
+		try {
+			//하위클레스에서 구현
+			startupPhase("refreshBeanFactory");
+			refreshBeanFactory();
+			ConfigurableListableBeanFactory beanFactory = getBeanFactory();
+			if (this.startupProfiler != null) {
+				beanFactory.addBeanCreationListener(this.startupProfiler);
+				profiledBeanFactory = beanFactory;
+			}
 
-		if (getBeanDefinitionCount() == 0) {
-			logger.warn("No beans defined in ApplicationContext [" + getDisplayName() + "]");
-		}
-		else {
-			logger.info(getBeanDefinitionCount() + " beans defined in ApplicationContext [" + getDisplayName() + "]");
-		}
+			startupPhase("postProcessBeanFactory");
+			beanFactory.registerCustomEditor(Resource.class, new ContextResourceEditor(this));
+			beanFactory.addBeanPostProcessor(new ApplicationContextAwareProcessor(this));
+			beanFactory.ignoreDependencyType(ResourceLoader.class);
+			beanFactory.ignoreDependencyType(ApplicationContext.class);
+			postProcessBeanFactory(beanFactory);
 
-		invokeBeanFactoryPostProcessors();
+			for (Iterator it = getBeanFactoryPostProcessors().iterator(); it.hasNext();) {
+				BeanFactoryPostProcessor factoryProcessor = (BeanFactoryPostProcessor) it.next();
+				factoryProcessor.postProcessBeanFactory(beanFactory);
+			}
 
-		registerBeanPostProcessors();
+			if (getBeanDefinitionCount() == 0) {
+				logger.warn("No beans defined in ApplicationContext [" + getDisplayName() + "]");
+			}
+			else {
+				logger.info(getBeanDefinitionCount() + " beans defined in ApplicationContext [" + getDisplayName() + "]");
+			}
 
-		initMessageSource();
+			startupPhase("invokeBeanFactoryPostProcessors");
+			invokeBeanFactoryPostProcessors();
 
-		onRefresh();
+			startupPhase("registerBeanPostProcessors");
+			registerBeanPostProcessors();
 
-		refreshListeners();
+			startupPhase("initMessageSource");
+			initMessageSource();
 
-		beanFactory.preInstantiateSingletons();
+			startupPhase("onRefresh");
+			onRefresh();
+
+			startupPhase("refreshListeners");
+			refreshListeners();
+
+			startupPhase("preInstantiateSingletons");
+			beanFactory.preInstantiateSingletons();
+
+			if (this.freezeOnRefresh) {
+				startupPhase("freezeBeanFactory");
+				beanFactory.freeze();
+			}
 
-		publishEvent(new ContextRefreshedEvent(this));
+			startupPhase("publishContextRefreshedEvent");
+			publishEvent(new ContextRefreshedEvent(this));
+		}
+		finally {
+			//시작 후의 prototype, pool, 쓰레드 scope 생성은 기록하지 않는다
+			if (profiledBeanFactory != null) {
+				profiledBeanFactory.removeBeanCreationListener(this.startupProfiler);
+			}
+			if (this.startupProfiler != null) {
+				this.startupProfiler.finishPhase();
+			}
+		}
 	}
 	
 	protected void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
@@ -177,14 +236,15 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 	}
 	
 	private void initMessageSource() throws BeansException {
-		try {
+		//예외로 없는지 검사하지 않고 먼저 확인
+		if (containsBean(MESSAGE_SOURCE_BEAN_NAME)) {
 			this.messageSource = (MessageSource) getBean(MESSAGE_SOURCE_BEAN_NAME);
-			if (this.parent != null && (this.messageSource instanceof HierarchicalMessageSource) && Arrays.asList(getBeanDefinitionNames()).contains(MESSAGE_SOURCE_BEAN_NAME)) {
+			if (this.parent != null && (this.messageSource instanceof HierarchicalMessageSource) && containsBeanDefinition(MESSAGE_SOURCE_BEAN_NAME)) {
 				//messageSource 에서도 부모 messageSourceㅍ등록
 				((HierarchicalMessageSource) this.messageSource).setParentMessageSource(this.parent);
 			}
 		}
-		catch (NoSuchBeanDefinitionException ex) {
+		else {
 			logger.info("No MessageSource found for [" + getDisplayName() + "]: using empty StaticMessageSource");
 			this.messageSource = new StaticMessageSource();
 		}
@@ -260,6 +320,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
 		return getBeanFactory().getBeansOfType(type, includePrototypes, includeFactoryBeans);
 	}
 	
+	public String[] getBeanNamesForType(Class type) throws BeansException {
+		return getBeanFactory().getBeanNamesForType(type);
+	}
+	
 	public BeanFactory getParentBeanFactory() {
 		return getParent();
 	}
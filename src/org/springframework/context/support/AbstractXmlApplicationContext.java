@@ -1,18 +1,47 @@
 package org.springframework.context.support;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
+import org.springframework.beans.factory.support.ChildBeanDefinition;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextException;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.OrderComparator;
+import org.springframework.core.io.Resource;
 
 public abstract class AbstractXmlApplicationContext extends AbstractApplicationContext{
 	
 	private ConfigurableListableBeanFactory beanFactory;
 	
+	//null 이 아니면 파싱한 definition 을 저장해 두고 설정 파일이 그대로면 파싱 대신 읽는다
+	private File definitionSnapshotFile;
+	
+	//0 (기본) 이 아니면 XML reader 와 snapshot 이 bean class 를 이 수의 쓰레드로 미리 load
+	private int classPrefetchThreads = 0;
+	
 	public AbstractXmlApplicationContext() {
 	}
 	
@@ -20,25 +49,398 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 		super(parent);
 	}
 	
+	public void setDefinitionSnapshotFile(File definitionSnapshotFile) {
+		this.definitionSnapshotFile = definitionSnapshotFile;
+	}
+	
+	public File getDefinitionSnapshotFile() {
+		return definitionSnapshotFile;
+	}
+	
+	public void setClassPrefetchThreads(int classPrefetchThreads) {
+		this.classPrefetchThreads = classPrefetchThreads;
+	}
+	
+	public int getClassPrefetchThreads() {
+		return classPrefetchThreads;
+	}
+	
 	protected void refreshBeanFactory() throws BeansException {
+		DefaultListableBeanFactory beanFactory = loadBeanFactory();
+		this.beanFactory = beanFactory;
+		if (logger.isInfoEnabled()) {
+			logger.info("Bean factory for application context '" + getDisplayName() + "': " + beanFactory);
+		}
+	}
+	
+	//새 bean factory 를 만들고 설정 파일의 definition 을 등록
+	private DefaultListableBeanFactory loadBeanFactory() throws BeansException {
+		if (this.definitionSnapshotFile != null) {
+			return loadBeanFactoryWithSnapshot();
+		}
+		return parseBeanFactory();
+	}
+	
+	private DefaultListableBeanFactory parseBeanFactory() throws BeansException {
 		try {
 			DefaultListableBeanFactory beanFactory = createBeanFactory();
 			//beanFactory 등록
 			//xml 파싱하는 객체 생성
 			XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(beanFactory);
 			beanDefinitionReader.setEntityResolver(new ResourceEntityResolver(this));
+			beanDefinitionReader.setClassPrefetchThreads(this.classPrefetchThreads);
 			initBeanDefinitionReader(beanDefinitionReader);
 			loadBeanDefinitions(beanDefinitionReader);
-			this.beanFactory = beanFactory;
-			if (logger.isInfoEnabled()) {
-				logger.info("Bean factory for application context '" + getDisplayName() + "': " + beanFactory);
-			}
+			return beanFactory;
 		}
 		catch (IOException ex) {
 			throw new ApplicationContextException("I/O error parsing XML document for application context [" + getDisplayName() + "]", ex);
 		} 
 	}
 	
+	//fingerprint 가 같으면 snapshot 을 등록, 다르거나 읽을수 없으면 파싱하고 snapshot 을 다시 쓴다
+	//snapshot 파일 문제로 시작이 실패하지는 않는다
+	private DefaultListableBeanFactory loadBeanFactoryWithSnapshot() throws BeansException {
+		BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(this.definitionSnapshotFile);
+		snapshot.setClassPrefetchThreads(this.classPrefetchThreads);
+		String fingerprint = null;
+		try {
+			fingerprint = BeanDefinitionSnapshot.getFingerprint(getConfigResources());
+			DefaultListableBeanFactory beanFactory = createBeanFactory();
+			if (snapshot.load(fingerprint, beanFactory)) {
+				return beanFactory;
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read bean definition snapshot [" + this.definitionSnapshotFile + "] - parsing XML", ex);
+		}
+		DefaultListableBeanFactory beanFactory = parseBeanFactory();
+		if (fingerprint != null) {
+			try {
+				snapshot.save(fingerprint, beanFactory);
+			}
+			catch (IOException ex) {
+				logger.warn("Could not write bean definition snapshot [" + this.definitionSnapshotFile + "]", ex);
+			}
+		}
+		return beanFactory;
+	}
+	
+	//loadBeanDefinitions 에서 읽는 설정 파일
+	protected Resource[] getConfigResources() {
+		String[] configLocations = getConfigLocations();
+		if (configLocations == null) {
+			return new Resource[0];
+		}
+		Resource[] resources = new Resource[configLocations.length];
+		for (int i = 0; i < configLocations.length; i++) {
+			resources[i] = getResource(configLocations[i]);
+		}
+		return resources;
+	}
+	
+	//설정 파일을 다시 읽어서 바뀐 definition 의 빈과 그 빈에 의존하는 빈만 다시 생성
+	//바뀌지 않은 싱글톤은 그대로 둔다
+	//BeanFactoryPostProcessor, BeanPostProcessor, ApplicationListener 가 바뀌면 전체 refresh
+	public void refreshIncrementally() throws BeansException {
+		if (!(this.beanFactory instanceof DefaultListableBeanFactory) || this.beanFactory.isFrozen()) {
+			refresh();
+			return;
+		}
+		DefaultListableBeanFactory currentBeanFactory = (DefaultListableBeanFactory) this.beanFactory;
+		DefaultListableBeanFactory newBeanFactory = loadBeanFactory();
+		postProcessNewBeanFactory(newBeanFactory);
+		
+		Set changedBeanNames = getChangedBeanNames(currentBeanFactory, newBeanFactory);
+		if (changedBeanNames.isEmpty()) {
+			logger.info("No bean definitions changed in application context [" + getDisplayName() + "]");
+			return;
+		}
+		if (containsInfrastructureBean(currentBeanFactory, changedBeanNames) ||
+				containsInfrastructureBean(newBeanFactory, changedBeanNames)) {
+			logger.info("Infrastructure bean definitions changed in application context [" + getDisplayName() +
+					"] - doing full refresh");
+			refresh();
+			return;
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info("Refreshing changed beans " + changedBeanNames + " in application context [" + getDisplayName() + "]");
+		}
+		
+		//없어진 definition 제거, 의존하는 싱글톤도 destroy 된다
+		String[] currentBeanNames = currentBeanFactory.getBeanDefinitionNames();
+		for (int i = 0; i < currentBeanNames.length; i++) {
+			if (!newBeanFactory.containsBeanDefinition(currentBeanNames[i])) {
+				currentBeanFactory.removeBeanDefinition(currentBeanNames[i]);
+			}
+		}
+		//바뀐 definition 은 덮어쓰면서 이전 객체를 destroy
+		String[] newBeanNames = newBeanFactory.getBeanDefinitionNames();
+		for (int i = 0; i < newBeanNames.length; i++) {
+			if (changedBeanNames.contains(newBeanNames[i])) {
+				currentBeanFactory.registerBeanDefinition(newBeanNames[i], newBeanFactory.getBeanDefinition(newBeanNames[i]));
+			}
+		}
+		//새 alias
+		for (int i = 0; i < newBeanNames.length; i++) {
+			String[] aliases = newBeanFactory.getAliases(newBeanNames[i]);
+			if (aliases.length > 0) {
+				List currentAliases = Arrays.asList(currentBeanFactory.getAliases(newBeanNames[i]));
+				for (int j = 0; j < aliases.length; j++) {
+					if (!currentAliases.contains(aliases[j])) {
+						currentBeanFactory.registerAlias(newBeanNames[i], aliases[j]);
+					}
+				}
+			}
+		}
+		
+		currentBeanFactory.preInstantiateSingletons();
+		publishEvent(new ContextRefreshedEvent(this));
+	}
+	
+	//refresh 에서 처럼 BeanFactoryPostProcessor 를 적용해야 지금 definition 과 비교할 수 있다
+	//BeanFactoryPostProcessor 빈은 지금 bean factory 의 객체를 사용한다
+	private void postProcessNewBeanFactory(DefaultListableBeanFactory newBeanFactory) throws BeansException {
+		for (Iterator it = getBeanFactoryPostProcessors().iterator(); it.hasNext();) {
+			((BeanFactoryPostProcessor) it.next()).postProcessBeanFactory(newBeanFactory);
+		}
+		String[] beanNames = getBeanDefinitionNames(BeanFactoryPostProcessor.class);
+		BeanFactoryPostProcessor[] factoryProcessors = new BeanFactoryPostProcessor[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			factoryProcessors[i] = (BeanFactoryPostProcessor) getBean(beanNames[i]);
+		}
+		Arrays.sort(factoryProcessors, new OrderComparator());
+		for (int i = 0; i < factoryProcessors.length; i++) {
+			factoryProcessors[i].postProcessBeanFactory(newBeanFactory);
+		}
+	}
+	
+	//추가, 제거, 변경된 bean name 과 부모 definition 이 바뀐 ChildBeanDefinition 의 이름
+	private Set getChangedBeanNames(DefaultListableBeanFactory currentBeanFactory, DefaultListableBeanFactory newBeanFactory) {
+		Set changedBeanNames = new HashSet();
+		String[] currentBeanNames = currentBeanFactory.getBeanDefinitionNames();
+		for (int i = 0; i < currentBeanNames.length; i++) {
+			if (!newBeanFactory.containsBeanDefinition(currentBeanNames[i])) {
+				changedBeanNames.add(currentBeanNames[i]);
+			}
+		}
+		String[] newBeanNames = newBeanFactory.getBeanDefinitionNames();
+		for (int i = 0; i < newBeanNames.length; i++) {
+			BeanDefinition newBeanDefinition = newBeanFactory.getBeanDefinition(newBeanNames[i]);
+			if (!currentBeanFactory.containsBeanDefinition(newBeanNames[i]) ||
+					!isSameDefinition(newBeanDefinition, currentBeanFactory.getBeanDefinition(newBeanNames[i]))) {
+				changedBeanNames.add(newBeanNames[i]);
+			}
+		}
+		boolean added = !changedBeanNames.isEmpty();
+		while (added) {
+			added = false;
+			for (int i = 0; i < newBeanNames.length; i++) {
+				BeanDefinition newBeanDefinition = newBeanFactory.getBeanDefinition(newBeanNames[i]);
+				if (newBeanDefinition instanceof ChildBeanDefinition && !changedBeanNames.contains(newBeanNames[i]) &&
+						changedBeanNames.contains(((ChildBeanDefinition) newBeanDefinition).getParentName())) {
+					changedBeanNames.add(newBeanNames[i]);
+					added = true;
+				}
+			}
+		}
+		return changedBeanNames;
+	}
+	
+	//definition 은 값이 바뀔수 있고 ManagedSet 에 들어가서 equals 는 identity 그대로 두고 여기서 내용을 비교
+	//resourceDescription 은 비교하지 않는다
+	private boolean isSameDefinition(BeanDefinition bd1, BeanDefinition bd2) {
+		if (bd1 == bd2) {
+			return true;
+		}
+		if (bd1.getClass() != bd2.getClass() ||
+				!isSamePropertyValues(bd1.getPropertyValues(), bd2.getPropertyValues()) ||
+				!isSameConstructorArguments(bd1.getConstructorArgumentValues(), bd2.getConstructorArgumentValues())) {
+			return false;
+		}
+		if (bd1 instanceof AbstractBeanDefinition) {
+			AbstractBeanDefinition abd1 = (AbstractBeanDefinition) bd1;
+			AbstractBeanDefinition abd2 = (AbstractBeanDefinition) bd2;
+			if (abd1.isSingleton() != abd2.isSingleton() || abd1.isLazyInit() != abd2.isLazyInit() ||
+					abd1.getPoolSize() != abd2.getPoolSize() || abd1.isThreadScoped() != abd2.isThreadScoped()) {
+				return false;
+			}
+		}
+		if (bd1 instanceof ChildBeanDefinition) {
+			return isSameValue(((ChildBeanDefinition) bd1).getParentName(), ((ChildBeanDefinition) bd2).getParentName());
+		}
+		if (bd1 instanceof RootBeanDefinition) {
+			RootBeanDefinition rbd1 = (RootBeanDefinition) bd1;
+			RootBeanDefinition rbd2 = (RootBeanDefinition) bd2;
+			return (isSameValue(rbd1.getBeanClassName(), rbd2.getBeanClassName()) &&
+					rbd1.getAutowireMode() == rbd2.getAutowireMode() && rbd1.getDependencyCheck() == rbd2.getDependencyCheck() &&
+					isSameValue(rbd1.getDependsOn(), rbd2.getDependsOn()) &&
+					isSameValue(rbd1.getInitMethodName(), rbd2.getInitMethodName()) &&
+					isSameValue(rbd1.getDestroyMethodName(), rbd2.getDestroyMethodName()));
+		}
+		return true;
+	}
+	
+	//순서와 상관 없이 같은 이름에 같은 값이 있으면 같다
+	private boolean isSamePropertyValues(MutablePropertyValues pvs1, MutablePropertyValues pvs2) {
+		if (pvs1.size() != pvs2.size()) {
+			return false;
+		}
+		for (int i = 0; i < pvs1.size(); i++) {
+			PropertyValue pv = pvs2.getPropertyValue(pvs1.getName(i));
+			if (pv == null || !isSameValue(pvs1.getValue(i), pv.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	//생성자 인자가 없는 것과 비어 있는 것은 같다, generic 인자는 순서와 상관 없다
+	private boolean isSameConstructorArguments(ConstructorArgumentValues cargs1, ConstructorArgumentValues cargs2) {
+		if (cargs1 == null || cargs1.isEmpty() || cargs2 == null || cargs2.isEmpty()) {
+			return ((cargs1 == null || cargs1.isEmpty()) && (cargs2 == null || cargs2.isEmpty()));
+		}
+		if (cargs1.getIndexedArgumentBound() != cargs2.getIndexedArgumentBound() ||
+				cargs1.getGenericArgumentCount() != cargs2.getGenericArgumentCount()) {
+			return false;
+		}
+		for (int i = 0; i < cargs1.getIndexedArgumentBound(); i++) {
+			ConstructorArgumentValues.ValueHolder valueHolder1 = cargs1.getIndexedArgumentValue(i);
+			ConstructorArgumentValues.ValueHolder valueHolder2 = cargs2.getIndexedArgumentValue(i);
+			if (valueHolder1 == null || valueHolder2 == null) {
+				if (valueHolder1 != valueHolder2) {
+					return false;
+				}
+			}
+			else if (!isSameValueHolder(valueHolder1, valueHolder2)) {
+				return false;
+			}
+		}
+		List genericArgumentValues = new ArrayList();
+		for (int i = 0; i < cargs2.getGenericArgumentCount(); i++) {
+			genericArgumentValues.add(cargs2.getGenericArgumentValueAt(i));
+		}
+		for (int i = 0; i < cargs1.getGenericArgumentCount(); i++) {
+			if (!removeSame(genericArgumentValues, cargs1.getGenericArgumentValueAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private boolean isSameValueHolder(ConstructorArgumentValues.ValueHolder valueHolder1, ConstructorArgumentValues.ValueHolder valueHolder2) {
+		return (isSameValue(valueHolder1.getValue(), valueHolder2.getValue()) &&
+				isSameValue(valueHolder1.getType(), valueHolder2.getType()));
+	}
+	
+	//inner bean, ref, list/set/map 안까지 내용으로 비교
+	private boolean isSameValue(Object value1, Object value2) {
+		if (value1 == value2) {
+			return true;
+		}
+		if (value1 == null || value2 == null) {
+			return false;
+		}
+		if (value1 instanceof ConstructorArgumentValues.ValueHolder && value2 instanceof ConstructorArgumentValues.ValueHolder) {
+			return isSameValueHolder((ConstructorArgumentValues.ValueHolder) value1, (ConstructorArgumentValues.ValueHolder) value2);
+		}
+		if (value1.getClass() != value2.getClass()) {
+			return false;
+		}
+		if (value1 instanceof BeanDefinition) {
+			return isSameDefinition((BeanDefinition) value1, (BeanDefinition) value2);
+		}
+		if (value1 instanceof RuntimeBeanReference) {
+			return ((RuntimeBeanReference) value1).getBeanName().equals(((RuntimeBeanReference) value2).getBeanName());
+		}
+		if (value1 instanceof Object[]) {
+			Object[] array1 = (Object[]) value1;
+			Object[] array2 = (Object[]) value2;
+			if (array1.length != array2.length) {
+				return false;
+			}
+			for (int i = 0; i < array1.length; i++) {
+				if (!isSameValue(array1[i], array2[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (value1 instanceof List) {
+			List list1 = (List) value1;
+			List list2 = (List) value2;
+			if (list1.size() != list2.size()) {
+				return false;
+			}
+			for (int i = 0; i < list1.size(); i++) {
+				if (!isSameValue(list1.get(i), list2.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (value1 instanceof Set) {
+			Set set1 = (Set) value1;
+			List elements = new ArrayList((Set) value2);
+			if (set1.size() != elements.size()) {
+				return false;
+			}
+			for (Iterator it = set1.iterator(); it.hasNext();) {
+				if (!removeSame(elements, it.next())) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (value1 instanceof Map) {
+			Map map1 = (Map) value1;
+			List entries = new ArrayList(((Map) value2).entrySet());
+			if (map1.size() != entries.size()) {
+				return false;
+			}
+			for (Iterator it = map1.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				boolean found = false;
+				for (Iterator otherIt = entries.iterator(); otherIt.hasNext() && !found;) {
+					Map.Entry otherEntry = (Map.Entry) otherIt.next();
+					if (isSameValue(entry.getKey(), otherEntry.getKey()) && isSameValue(entry.getValue(), otherEntry.getValue())) {
+						otherIt.remove();
+						found = true;
+					}
+				}
+				if (!found) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return value1.equals(value2);
+	}
+	
+	//values 에서 value 와 내용이 같은 것을 하나 빼고 true, 없으면 false
+	private boolean removeSame(List values, Object value) {
+		for (Iterator it = values.iterator(); it.hasNext();) {
+			if (isSameValue(value, it.next())) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private boolean containsInfrastructureBean(DefaultListableBeanFactory beanFactory, Set beanNames) {
+		Class[] infrastructureTypes = new Class[] {BeanFactoryPostProcessor.class, BeanPostProcessor.class, ApplicationListener.class};
+		for (int i = 0; i < infrastructureTypes.length; i++) {
+			String[] infrastructureBeanNames = beanFactory.getBeanDefinitionNames(infrastructureTypes[i]);
+			for (int j = 0; j < infrastructureBeanNames.length; j++) {
+				if (beanNames.contains(infrastructureBeanNames[j])) {
+					return true;
+				}
+			}
+		}
+		return beanNames.contains(MESSAGE_SOURCE_BEAN_NAME);
+	}
+	
 	protected DefaultListableBeanFactory createBeanFactory() {
 		return new DefaultListableBeanFactory(getParent());
 	}
@@ -16,6 +16,14 @@ public class ClassPathXmlApplicationContext extends AbstractXmlApplicationContex
 		refresh();
 	}
 	
+	//refresh 가 false 이면 StartupProfiler 등을 설정한 다음 직접 refresh() 호출
+	public ClassPathXmlApplicationContext(String[] configLocations, boolean refresh) throws BeansException {
+		this.configLocations = configLocations;
+		if (refresh) {
+			refresh();
+		}
+	}
+	
 	public ClassPathXmlApplicationContext(String[] configLocations, ApplicationContext parent)
 			throws BeansException {
 		super(parent);
@@ -19,6 +19,14 @@ public class FileSystemXmlApplicationContext extends AbstractXmlApplicationConte
 		refresh();
 	}
 	
+	//refresh 가 false 이면 StartupProfiler 등을 설정한 다음 직접 refresh() 호출
+	public FileSystemXmlApplicationContext(String[] configLocations, boolean refresh) throws BeansException {
+		this.configLocations = configLocations;
+		if (refresh) {
+			refresh();
+		}
+	}
+	
 	public FileSystemXmlApplicationContext(String[] configLocations, ApplicationContext parent)
 			throws BeansException {
 		super(parent);
@@ -0,0 +1,217 @@
+package org.springframework.context.support;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.config.BeanCreationListenerAdapter;
+
+//AbstractApplicationContext.refresh 단계와 빈 생성 시간을 기록
+//Chrome trace(chrome://tracing) JSON 과 가장 오래 걸린 의존 경로 요약을 만든다
+public class StartupProfiler extends BeanCreationListenerAdapter {
+
+	private final long baseTime = System.nanoTime();
+
+	//끝난 Span, 시작 순서
+	private final List spans = new ArrayList();
+
+	private Span currentPhase;
+
+	//쓰레드 별 생성중인 빈 Span, 맨 앞이 가장 안쪽
+	private final ThreadLocal beanStack = new ThreadLocal() {
+		protected Object initialValue() {
+			return new LinkedList();
+		}
+	};
+
+	//이전 단계는 끝내고 새 단계 시작
+	public synchronized void startPhase(String phaseName) {
+		finishPhase();
+		this.currentPhase = new Span(phaseName, null, true, now());
+	}
+
+	public synchronized void finishPhase() {
+		if (this.currentPhase != null) {
+			this.currentPhase.end = now();
+			this.spans.add(this.currentPhase);
+			this.currentPhase = null;
+		}
+	}
+
+	public void beanCreationStarted(String beanName) {
+		LinkedList stack = (LinkedList) this.beanStack.get();
+		String parentName = (stack.isEmpty() ? null : ((Span) stack.getFirst()).name);
+		stack.addFirst(new Span(beanName, parentName, false, now()));
+	}
+
+	public void beanCreationFinished(String beanName, long nanos, boolean success) {
+		LinkedList stack = (LinkedList) this.beanStack.get();
+		if (stack.isEmpty()) {
+			return;
+		}
+		Span span = (Span) stack.removeFirst();
+		span.end = now();
+		if (!stack.isEmpty()) {
+			((Span) stack.getFirst()).children.add(span);
+		}
+		synchronized (this) {
+			this.spans.add(span);
+		}
+	}
+
+	private long now() {
+		return (System.nanoTime() - this.baseTime) / 1000;
+	}
+
+	public void exportChromeTrace(String fileName) throws IOException {
+		Writer writer = new FileWriter(fileName);
+		try {
+			writeChromeTrace(writer);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	//complete event("ph":"X") 배열, 시간 단위는 micro second
+	public synchronized void writeChromeTrace(Writer writer) throws IOException {
+		writer.write("{\"traceEvents\":[\n");
+		Map threadNames = new HashMap();
+		for (int i = 0; i < this.spans.size(); i++) {
+			Span span = (Span) this.spans.get(i);
+			threadNames.put(Long.valueOf(span.threadId), span.threadName);
+			writer.write("{\"name\":");
+			writeJsonString(writer, span.name);
+			writer.write(",\"cat\":\"" + (span.phase ? "refresh" : "bean") + "\",\"ph\":\"X\",\"ts\":" + span.start +
+					",\"dur\":" + span.getDuration() + ",\"pid\":1,\"tid\":" + span.threadId);
+			if (span.parentName != null) {
+				writer.write(",\"args\":{\"parent\":");
+				writeJsonString(writer, span.parentName);
+				writer.write("}");
+			}
+			writer.write("},\n");
+		}
+		//쓰레드 이름 metadata
+		for (Iterator it = threadNames.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + entry.getKey() +
+					",\"args\":{\"name\":");
+			writeJsonString(writer, (String) entry.getValue());
+			writer.write("}}" + (it.hasNext() ? ",\n" : "\n"));
+		}
+		writer.write("]}\n");
+		writer.flush();
+	}
+
+	private void writeJsonString(Writer writer, String value) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			}
+			else if (c < 0x20) {
+				String hex = Integer.toHexString(c);
+				writer.write("\\u");
+				for (int j = hex.length(); j < 4; j++) {
+					writer.write('0');
+				}
+				writer.write(hex);
+			}
+			else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	//단계별 시간과 가장 오래 걸린 최상위 빈 부터 가장 오래 걸린 자식을 따라간 경로
+	public synchronized String getSummary() {
+		StringBuffer sb = new StringBuffer("Startup profile:\n");
+		Span critical = null;
+		for (int i = 0; i < this.spans.size(); i++) {
+			Span span = (Span) this.spans.get(i);
+			if (span.phase) {
+				sb.append("  ").append(span.name).append(": ").append(formatMillis(span.getDuration())).append(" ms\n");
+			}
+			else if (span.parentName == null && (critical == null || span.getDuration() > critical.getDuration())) {
+				critical = span;
+			}
+		}
+		sb.append("Critical path (inclusive / exclusive ms):\n");
+		String indent = "  ";
+		while (critical != null) {
+			sb.append(indent).append(critical.name).append(": ").append(formatMillis(critical.getDuration()))
+					.append(" / ").append(formatMillis(critical.getExclusiveDuration())).append('\n');
+			indent += "  ";
+			Span next = null;
+			for (int i = 0; i < critical.children.size(); i++) {
+				Span child = (Span) critical.children.get(i);
+				if (next == null || child.getDuration() > next.getDuration()) {
+					next = child;
+				}
+			}
+			critical = next;
+		}
+		return sb.toString();
+	}
+
+	public String toString() {
+		return getSummary();
+	}
+
+	private static String formatMillis(long micros) {
+		long fraction = micros % 1000;
+		return (micros / 1000) + "." + (fraction < 100 ? (fraction < 10 ? "00" : "0") : "") + fraction;
+	}
+
+
+	private static class Span {
+
+		private final String name;
+
+		//이 빈 생성을 시작하게 한 빈, 없으면 null
+		private final String parentName;
+
+		private final boolean phase;
+
+		private final long threadId;
+
+		private final String threadName;
+
+		private final long start;
+
+		private long end;
+
+		private final List children = new ArrayList();
+
+		private Span(String name, String parentName, boolean phase, long start) {
+			this.name = name;
+			this.parentName = parentName;
+			this.phase = phase;
+			this.threadId = Thread.currentThread().getId();
+			this.threadName = Thread.currentThread().getName();
+			this.start = start;
+		}
+
+		private long getDuration() {
+			return this.end - this.start;
+		}
+
+		private long getExclusiveDuration() {
+			long exclusive = getDuration();
+			for (int i = 0; i < this.children.size(); i++) {
+				exclusive -= ((Span) this.children.get(i)).getDuration();
+			}
+			return exclusive;
+		}
+	}
+
+}
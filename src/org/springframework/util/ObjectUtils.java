@@ -0,0 +1,36 @@
+package org.springframework.util;
+
+import java.util.Arrays;
+
+public class ObjectUtils {
+
+	// 둘다 null 이면 같다, 배열은 내용으로 비교
+	public static boolean nullSafeEquals(Object o1, Object o2) {
+		if (o1 == o2) {
+			return true;
+		}
+		if (o1 == null || o2 == null) {
+			return false;
+		}
+		if (o1 instanceof Object[] && o2 instanceof Object[]) {
+			return Arrays.equals((Object[]) o1, (Object[]) o2);
+		}
+		return o1.equals(o2);
+	}
+
+	public static int nullSafeHashCode(Object obj) {
+		if (obj == null) {
+			return 0;
+		}
+		if (obj instanceof Object[]) {
+			Object[] array = (Object[]) obj;
+			int hash = 7;
+			for (int i = 0; i < array.length; i++) {
+				hash = hash * 31 + nullSafeHashCode(array[i]);
+			}
+			return hash;
+		}
+		return obj.hashCode();
+	}
+
+}